@@ -20,6 +20,9 @@ export interface TableSetupDto {
     tablePluralLabel: string;
 }
 
+/** Polls of a table-creation job (one per second) before giving up waiting; the job keeps running. */
+const JOB_MAX_POLLS = 300;
+
 interface TableSetupFormProps {
     /** If present → edit mode, otherwise create mode */
     initialTable?: TableSetupDto;
@@ -70,6 +73,12 @@ export default function TableSetupForm({ initialTable }: TableSetupFormProps) {
                 throw new Error(`HTTP ${res.status}: ${text || res.statusText}`);
             }
 
+            // a new table is created by a background job: wait for it to finish
+            const data = await res.json().catch(() => ({}));
+            if (data.jobId) {
+                await waitForJob(data.jobId);
+            }
+
             // on success go back to list
             navigate('/tableSetup');
         } catch (err: any) {
@@ -80,6 +89,22 @@ export default function TableSetupForm({ initialTable }: TableSetupFormProps) {
         }
     };
 
+    const waitForJob = async (jobId: string) => {
+        for (let poll = 1; ; poll++) {
+            if (poll > JOB_MAX_POLLS) {
+                throw new Error('Table creation is taking longer than expected, check the table list later');
+            }
+            const res = await fetch(`${BASE_PATH}/tableSetup/jobs/${jobId}`, { credentials: 'include' });
+            if (!res.ok) {
+                throw new Error(`HTTP ${res.status}: ${res.statusText}`);
+            }
+            const job = await res.json();
+            if (job.status === 'COMPLETED') return;
+            if (job.status === 'FAILED') throw new Error('Table creation failed');
+            await new Promise((resolve) => setTimeout(resolve, 1000));
+        }
+    };
+
     const handleCancel = () => {
         navigate('/tableSetup');
     };
@@ -6,13 +6,33 @@ export interface TableDataDto {
     allFields: string[];
     columnLabels: Record<string,string>;
     records: Record<string, any>[];
+    /** columnar shape (?format=columnar): field names once, rows as positional arrays */
+    columns?: string[];
+    rows?: any[][];
     cellFormatters?: Record<string, 'date' | 'currency' | 'string'>;
+    /** present only for paged requests (?limit= / ?after=); null on the last page */
+    nextCursor?: string | null;
 }
 
 const API_BASE = process.env.REACT_APP_API_BASE_URL || '/p2proto';
 
+/**
+ * Turn a columnar response back into keyed records, so callers only ever see `records`.
+ */
+function fromColumnar(dto: TableDataDto): TableDataDto {
+    if (!dto.columns || !dto.rows) return dto;
+    const columns = dto.columns;
+    const records = dto.rows.map((row) => {
+        const rec: Record<string, any> = {};
+        for (let i = 0; i < columns.length; i++) rec[columns[i]] = row[i];
+        return rec;
+    });
+    return { ...dto, records, rows: undefined };
+}
+
 /**
  * Fetch the raw table data for a given tableName and query string.
+ * Asks for the compact columnar shape and expands it to `records`.
  * @param tableName  name of the table (e.g. "users")
  * @param query      URL query (e.g. "?page=2&sort=created_at")
  * @returns           a Promise resolving to the raw DTO
@@ -21,11 +41,13 @@ export async function fetchTableData(
     tableName: string,
     query: string
 ): Promise<TableDataDto> {
-    const url = `${API_BASE}/table/${encodeURIComponent(tableName)}${query}`;
+    const params = new URLSearchParams(query);
+    if (!params.has('format')) params.set('format', 'columnar');
+    const url = `${API_BASE}/table/${encodeURIComponent(tableName)}?${params.toString()}`;
     const res = await fetch(url, { credentials: 'include' });
     if (!res.ok) {
         throw new Error(`Failed to fetch table "${tableName}": ${res.status} ${res.statusText}`);
     }
     // will throw if JSON invalid
-    return (await res.json()) as TableDataDto;
+    return fromColumnar((await res.json()) as TableDataDto);
 }
\ No newline at end of file
@@ -0,0 +1,53 @@
+package org.p2proto.config;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Eviction counters per key, so a value loaded before an eviction of its key is not cached after it.
+ * Keys are striped; two keys sharing a stripe only cost an extra skipped store.
+ * <p>
+ * A store is checked on both sides ({@link #isCurrent} before, and again after it): an eviction
+ * racing with the store is caught by the second check, and the caller then undoes the store.
+ */
+final class EvictionGenerations {
+
+    private static final int STRIPES = 64;
+
+    private final AtomicLongArray stripes = new AtomicLongArray(STRIPES);
+
+    /** Generation to hand to {@link #isCurrent} once the value for {@code key} is loaded. */
+    long current(Object key) {
+        return stripes.get(stripe(key));
+    }
+
+    /** Generations of all keys at once, for a load covering many keys. */
+    long[] snapshot() {
+        long[] out = new long[STRIPES];
+        for (int i = 0; i < STRIPES; i++) out[i] = stripes.get(i);
+        return out;
+    }
+
+    boolean isCurrent(Object key, long generation) {
+        return stripes.get(stripe(key)) == generation;
+    }
+
+    boolean isCurrent(Object key, long[] snapshot) {
+        int i = stripe(key);
+        return stripes.get(i) == snapshot[i];
+    }
+
+    /** Call before evicting {@code key}. */
+    void bump(Object key) {
+        stripes.incrementAndGet(stripe(key));
+    }
+
+    /** Call before clearing. */
+    void bumpAll() {
+        for (int i = 0; i < STRIPES; i++) stripes.incrementAndGet(i);
+    }
+
+    private static int stripe(Object key) {
+        int h = (key == null) ? 0 : key.hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+}
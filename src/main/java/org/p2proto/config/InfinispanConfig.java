@@ -9,25 +9,55 @@ import javax.cache.Caching;
 import javax.cache.spi.CachingProvider;
 import javax.cache.CacheManager;
 import java.net.URI;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Set;
 
 @Configuration
 @EnableCaching
 public class InfinispanConfig {
 
+    /**
+     * Cache mode, as system property or (upper-cased, dots as underscores) environment variable:
+     * {@code local} (default) or {@code cluster}, which joins the other nodes over JGroups.
+     */
+    public static final String CACHE_MODE_PROPERTY = "p2proto.cache.mode";
+
+    /** Table metadata is read several times per request, so it gets an on-heap L1. */
+    private static final Set<String> L1_CACHES = Set.of("tables");
+    private static final int L1_MAX_ENTRIES = 256;
+    private static final Duration L1_TTL = Duration.ofSeconds(5);
+
     @Bean
     public CacheManager jCacheManager() throws Exception {
         // Obtain the default CachingProvider (Infinispan's JCache implementation)
         CachingProvider cachingProvider = Caching.getCachingProvider();
 
         // Load Infinispan configuration from XML
-        URI configUri = getClass().getResource("/infinispan-config.xml").toURI();
+        URI configUri = getClass().getResource(configResource(cacheMode())).toURI();
         javax.cache.CacheManager cacheManager = cachingProvider.getCacheManager(configUri, getClass().getClassLoader());
 
         return cacheManager;
     }
 
     @Bean
-    public org.springframework.cache.CacheManager springCacheManager(CacheManager jCacheManager) {
-        return new JCacheCacheManager(jCacheManager);
+    public TwoLevelCacheManager springCacheManager(CacheManager jCacheManager) {
+        JCacheCacheManager l2 = new JCacheCacheManager(jCacheManager);
+        l2.afterPropertiesSet(); // not a bean of its own
+        return new TwoLevelCacheManager(l2, L1_CACHES, L1_MAX_ENTRIES, L1_TTL);
+    }
+
+    static String cacheMode() {
+        String mode = System.getProperty(CACHE_MODE_PROPERTY);
+        if (mode == null) mode = System.getenv("P2PROTO_CACHE_MODE");
+        return Objects.requireNonNullElse(mode, "local");
+    }
+
+    static String configResource(String mode) {
+        return switch (mode.trim().toLowerCase()) {
+            case "local" -> "/infinispan-config.xml";
+            case "cluster" -> "/infinispan-cluster-config.xml";
+            default -> throw new IllegalArgumentException("Unknown " + CACHE_MODE_PROPERTY + ": " + mode);
+        };
     }
 }
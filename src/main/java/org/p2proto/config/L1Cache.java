@@ -0,0 +1,188 @@
+package org.p2proto.config;
+
+import org.p2proto.dto.CacheStats;
+import org.springframework.cache.Cache;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Small on-heap cache in front of another {@link Cache}: a hit is one hash lookup, skipping the
+ * key wrapping and interceptors of the cache behind it (L2).
+ * <p>
+ * Evictions and clears go to both levels, so the same events invalidate both. A value read from L2
+ * before an eviction of its key is not stored in L1 after it. Entries also expire
+ * after a short TTL, which bounds staleness when L2 is changed without going through this cache
+ * (e.g. a clustered invalidation from another node). Past the size bound, arbitrary entries are
+ * dropped; the L2 still holds them.
+ */
+public final class L1Cache implements Cache {
+
+    private record Entry(Object value, long expiresAt) {
+    }
+
+    private final Cache l2;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final Map<Object, Entry> entries = new ConcurrentHashMap<>();
+    private final EvictionGenerations generations = new EvictionGenerations();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder getNanos = new LongAdder();
+
+    public L1Cache(Cache l2, int maxEntries, Duration ttl) {
+        this(l2, maxEntries, ttl, System::nanoTime);
+    }
+
+    L1Cache(Cache l2, int maxEntries, Duration ttl, LongSupplier clock) {
+        this.l2 = l2;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.clock = clock;
+    }
+
+    public Cache getL2() {
+        return l2;
+    }
+
+    public CacheStats stats() {
+        long h = hits.sum(), m = misses.sum();
+        double avgMicros = (h + m == 0) ? 0 : getNanos.sum() / 1000.0 / (h + m);
+        return new CacheStats(getName(), "L1", h, m, evictions.sum(), avgMicros);
+    }
+
+    @Override
+    public String getName() {
+        return l2.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return l2.getNativeCache();
+    }
+
+    @Override
+    @Nullable
+    public ValueWrapper get(Object key) {
+        long start = clock.getAsLong();
+        Entry e = entries.get(key);
+        if (e != null && e.expiresAt - start > 0) {
+            record(start, true);
+            return () -> e.value;
+        }
+        record(start, false);
+        long generation = generations.current(key);
+        ValueWrapper w = l2.get(key);
+        if (w != null) storeIfCurrent(key, w.get(), generation);
+        return w;
+    }
+
+    @Override
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, @Nullable Class<T> type) {
+        ValueWrapper w = get(key);
+        Object value = (w == null) ? null : w.get();
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        long start = clock.getAsLong();
+        Entry e = entries.get(key);
+        if (e != null && e.expiresAt - start > 0) {
+            record(start, true);
+            return (T) e.value;
+        }
+        record(start, false);
+        long generation = generations.current(key);
+        T value = l2.get(key, valueLoader); // single-flight happens in L2
+        storeIfCurrent(key, value, generation);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, @Nullable Object value) {
+        l2.put(key, value);
+        store(key, value);
+    }
+
+    @Override
+    @Nullable
+    public ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
+        ValueWrapper existing = l2.putIfAbsent(key, value);
+        store(key, existing == null ? value : existing.get());
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        generations.bump(key);
+        l2.evict(key);
+        entries.remove(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        generations.bump(key);
+        boolean present = l2.evictIfPresent(key);
+        return entries.remove(key) != null || present;
+    }
+
+    @Override
+    public void clear() {
+        generations.bumpAll();
+        l2.clear();
+        entries.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        generations.bumpAll();
+        boolean any = l2.invalidate();
+        boolean local = !entries.isEmpty();
+        entries.clear();
+        return any || local;
+    }
+
+    private void storeIfCurrent(Object key, @Nullable Object value, long generation) {
+        if (!generations.isCurrent(key, generation)) return;
+        store(key, value);
+        if (!generations.isCurrent(key, generation)) entries.remove(key);
+    }
+
+    private void store(Object key, @Nullable Object value) {
+        if (value == null) {
+            entries.remove(key);
+            return;
+        }
+        if (entries.size() >= maxEntries && !entries.containsKey(key)) {
+            Iterator<Object> it = entries.keySet().iterator();
+            if (it.hasNext()) {
+                it.next();
+                it.remove();
+                evictions.increment();
+            }
+        }
+        entries.put(key, new Entry(value, clock.getAsLong() + ttlNanos));
+    }
+
+    private void record(long start, boolean hit) {
+        (hit ? hits : misses).increment();
+        getNanos.add(clock.getAsLong() - start);
+    }
+}
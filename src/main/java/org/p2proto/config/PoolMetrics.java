@@ -0,0 +1,79 @@
+package org.p2proto.config;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import org.p2proto.dto.ConnectionPoolStats;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of the Hikari pool ({@code metricsTrackerFactory} in {@code applicationContext.xml}):
+ * pool state, a histogram of connection acquire times, timeouts and average time in use.
+ * Hikari also registers its pool MBeans ({@code registerMbeans}).
+ */
+@Component("poolMetrics")
+public class PoolMetrics implements MetricsTrackerFactory {
+
+    /** Upper bounds of the acquire-time buckets, in milliseconds. */
+    static final double[] BOUNDS_MILLIS = {0.1, 0.5, 1, 5, 10, 50, 100, 500, 1000, 5000};
+
+    private volatile String poolName;
+    private volatile PoolStats poolStats;
+
+    private final LongAdder[] buckets = new LongAdder[BOUNDS_MILLIS.length + 1];
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder usages = new LongAdder();
+    private final LongAdder usageMillis = new LongAdder();
+
+    public PoolMetrics() {
+        for (int i = 0; i < buckets.length; i++) buckets[i] = new LongAdder();
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        this.poolName = poolName;
+        this.poolStats = poolStats;
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                recordAcquire(elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                usages.increment();
+                usageMillis.add(elapsedBorrowedMillis);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.increment();
+            }
+        };
+    }
+
+    void recordAcquire(long nanos) {
+        double millis = nanos / 1_000_000.0;
+        int i = 0;
+        while (i < BOUNDS_MILLIS.length && millis > BOUNDS_MILLIS[i]) i++;
+        buckets[i].increment();
+    }
+
+    public ConnectionPoolStats snapshot() {
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (int i = 0; i < BOUNDS_MILLIS.length; i++) histogram.put(String.valueOf(BOUNDS_MILLIS[i]), buckets[i].sum());
+        histogram.put("+Inf", buckets[BOUNDS_MILLIS.length].sum());
+
+        long n = usages.sum();
+        double avgUsage = (n == 0) ? 0 : (double) usageMillis.sum() / n;
+        PoolStats s = poolStats;
+        if (s == null) return new ConnectionPoolStats(poolName, 0, 0, 0, 0, 0, histogram, timeouts.sum(), avgUsage);
+        return new ConnectionPoolStats(poolName, s.getActiveConnections(), s.getIdleConnections(),
+                s.getPendingThreads(), s.getTotalConnections(), s.getMaxConnections(),
+                histogram, timeouts.sum(), avgUsage);
+    }
+}
@@ -0,0 +1,75 @@
+package org.p2proto.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Replay lag of one replica, measured at most once per check interval by whichever caller finds
+ * the last measurement too old; everyone else keeps using the last one.
+ * <p>
+ * The lag is 0 when the replica has replayed everything it received (an idle primary does not
+ * make it look stale), otherwise the age of the last replayed transaction. It says nothing about
+ * WAL the replica has not received yet, so read-your-writes compares the replayed WAL position
+ * with the primary's position after the write instead. A database that is not in recovery (e.g. a
+ * second local instance standing in for a replica) always reports 0 lag and everything replayed.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    static final String LAG_QUERY =
+            "SELECT CASE WHEN NOT pg_is_in_recovery() " +
+                    "              OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+                    "            ELSE (EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000)::bigint END, " +
+                    "       CASE WHEN pg_is_in_recovery() " +
+                    "            THEN (pg_last_wal_replay_lsn() - '0/0'::pg_lsn)::bigint END";
+
+    /**
+     * @param lagMillis   replay lag at {@code checkedAt}, {@link Long#MAX_VALUE} if the check failed
+     * @param replayedLsn WAL position (bytes) up to which the replica holds all committed writes,
+     *                    comparable with {@link ReplicaRoutingDataSource#PRIMARY_LSN_QUERY}
+     */
+    public record Status(long lagMillis, long replayedLsn) {
+        static final Status UNKNOWN = new Status(Long.MAX_VALUE, Long.MIN_VALUE);
+    }
+
+    private final JdbcTemplate jdbc;
+    private final long checkIntervalMillis;
+    private final LongSupplier clock;
+    private final AtomicBoolean checking = new AtomicBoolean();
+    private volatile Status status = Status.UNKNOWN;
+    private volatile long checkedAt = Long.MIN_VALUE;
+
+    public ReplicaLagMonitor(DataSource replica, long checkIntervalMillis) {
+        this(replica, checkIntervalMillis, System::currentTimeMillis);
+    }
+
+    ReplicaLagMonitor(DataSource replica, long checkIntervalMillis, LongSupplier clock) {
+        this.jdbc = new JdbcTemplate(replica);
+        this.checkIntervalMillis = checkIntervalMillis;
+        this.clock = clock;
+    }
+
+    public Status status() {
+        long now = clock.getAsLong();
+        if (now - checkedAt >= checkIntervalMillis && checking.compareAndSet(false, true)) {
+            try {
+                status = jdbc.queryForObject(LAG_QUERY, (rs, i) -> {
+                    long lag = Math.max(0, rs.getLong(1));
+                    long replayed = rs.getLong(2);
+                    return new Status(lag, rs.wasNull() ? Long.MAX_VALUE : replayed);
+                });
+            } catch (RuntimeException e) {
+                log.warn("Replica lag check failed, reads go to the primary", e);
+                status = Status.UNKNOWN;
+            } finally {
+                checkedAt = now;
+                checking.set(false);
+            }
+        }
+        return status;
+    }
+}
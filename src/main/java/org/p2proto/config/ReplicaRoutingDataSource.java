@@ -0,0 +1,189 @@
+package org.p2proto.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.sql.DataSource;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Sends reads to replicas and everything else to the primary.
+ * <p>
+ * A read is work in a {@code @Transactional(readOnly = true)} transaction, or a call wrapped in
+ * {@link #read} outside any read-write transaction. Must sit behind a
+ * {@code LazyConnectionDataSourceProxy}: the read-only flag of a transaction is only known once it
+ * has begun, after the transaction manager asked for its connection.
+ * <p>
+ * A replica is used while its replay lag is at most {@code maxLagMillis}, and, for read-your-writes,
+ * only once it has replayed the current HTTP session's last committed read-write transaction;
+ * until then that session reads from the primary. The session records that it wrote; its next
+ * read asks the primary for its WAL position (after the commit, by then) and compares it with the
+ * position each replica has replayed. Replicas are taken in turn. Any other primary access outside
+ * a transaction (an autocommit write, or a plain call that may be one) marks the session the same
+ * way when it gets its connection; the write is done by the time this thread reads again.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+
+    /** Current WAL position of the primary, in bytes. */
+    static final String PRIMARY_LSN_QUERY = "SELECT (pg_current_wal_lsn() - '0/0'::pg_lsn)::bigint";
+    /** The session's last write: its primary WAL position, or {@link #WRITE_UNRESOLVED}. */
+    static final String LAST_WRITE_ATTRIBUTE = ReplicaRoutingDataSource.class.getName() + ".lastWrite";
+    /** The session wrote; its position is looked up at the next read. */
+    static final long WRITE_UNRESOLVED = -1;
+
+    private static final ThreadLocal<Boolean> READ = new ThreadLocal<>();
+    private static final ThreadLocal<Object> PINNED = new ThreadLocal<>();
+    private static final ThreadLocal<Object> LAST_KEY = new ThreadLocal<>();
+    private static final Object WRITE_TRACKED = new Object();
+
+    private final List<String> replicaKeys = new ArrayList<>();
+    private final List<ReplicaLagMonitor> monitors = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final long maxLagMillis;
+    private final LongSupplier primaryLsn;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, long maxLagMillis, long lagCheckMillis) {
+        this(primary, replicas, replicas.stream().map(r -> new ReplicaLagMonitor(r, lagCheckMillis)).toList(),
+                maxLagMillis, primaryLsn(new JdbcTemplate(primary)));
+    }
+
+    ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, List<ReplicaLagMonitor> monitors,
+                             long maxLagMillis, LongSupplier primaryLsn) {
+        this.maxLagMillis = maxLagMillis;
+        this.primaryLsn = primaryLsn;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            String key = "replica-" + i;
+            targets.put(key, replicas.get(i));
+            replicaKeys.add(key);
+        }
+        this.monitors.addAll(monitors);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    /** Runs {@code work} as a read path: on a replica unless inside a read-write transaction. */
+    public static <T> T read(Supplier<T> work) {
+        Boolean outer = READ.get();
+        READ.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (outer == null) READ.remove();
+        }
+    }
+
+    /** Runs {@code work} on the given target, e.g. the {@link #lastKey()} of another thread. */
+    public static <T> T pinned(Object key, Supplier<T> work) {
+        Object outer = PINNED.get();
+        PINNED.set(key);
+        try {
+            return work.get();
+        } finally {
+            if (outer == null) PINNED.remove(); else PINNED.set(outer);
+        }
+    }
+
+    /** Target chosen for this thread's last connection, {@code null} if none yet. */
+    public static Object lastKey() {
+        return LAST_KEY.get();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Object key = route();
+        LAST_KEY.set(key);
+        return key;
+    }
+
+    private Object route() {
+        Object pinned = PINNED.get();
+        if (pinned != null) return pinned;
+
+        boolean inTransaction = TransactionSynchronizationManager.isActualTransactionActive();
+        boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        if (inTransaction && !readOnly) {
+            trackWrite();
+            return PRIMARY;
+        }
+        if (!readOnly && READ.get() == null) {
+            if (!replicaKeys.isEmpty()) markWrite(RequestContextHolder.getRequestAttributes());
+            return PRIMARY;
+        }
+        if (replicaKeys.isEmpty()) return PRIMARY;
+
+        long lastWrite = lastSessionWrite();
+        int n = replicaKeys.size();
+        int start = Math.floorMod(next.getAndIncrement(), n);
+        for (int i = 0; i < n; i++) {
+            int idx = (start + i) % n;
+            ReplicaLagMonitor.Status s = monitors.get(idx).status();
+            if (s.lagMillis() <= maxLagMillis && s.replayedLsn() >= lastWrite) return replicaKeys.get(idx);
+        }
+        return PRIMARY;
+    }
+
+    /** Records in the session that this read-write transaction committed, once per transaction. */
+    private static void trackWrite() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        if (RequestContextHolder.getRequestAttributes() == null) return;
+        if (TransactionSynchronizationManager.hasResource(WRITE_TRACKED)) return;
+        TransactionSynchronizationManager.bindResource(WRITE_TRACKED, Boolean.TRUE);
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                markWrite(attributes);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(WRITE_TRACKED);
+            }
+        });
+    }
+
+    private static void markWrite(RequestAttributes attributes) {
+        if (attributes == null) return;
+        Object t = attributes.getAttribute(LAST_WRITE_ATTRIBUTE, RequestAttributes.SCOPE_SESSION);
+        if (t instanceof Long lsn && lsn == WRITE_UNRESOLVED) return;
+        attributes.setAttribute(LAST_WRITE_ATTRIBUTE, WRITE_UNRESOLVED, RequestAttributes.SCOPE_SESSION);
+    }
+
+    /** WAL position a replica must have replayed for this session, resolving a new write first. */
+    private long lastSessionWrite() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) return Long.MIN_VALUE;
+        Object t = attributes.getAttribute(LAST_WRITE_ATTRIBUTE, RequestAttributes.SCOPE_SESSION);
+        if (!(t instanceof Long lsn)) return Long.MIN_VALUE;
+        if (lsn != WRITE_UNRESOLVED) return lsn;
+        long current = primaryLsn.getAsLong();
+        if (current != Long.MAX_VALUE) attributes.setAttribute(LAST_WRITE_ATTRIBUTE, current, RequestAttributes.SCOPE_SESSION);
+        return current;
+    }
+
+    /** Reads {@link #PRIMARY_LSN_QUERY}; {@link Long#MAX_VALUE} (read from the primary) if that fails. */
+    private static LongSupplier primaryLsn(JdbcTemplate primary) {
+        return () -> {
+            try {
+                Long lsn = primary.queryForObject(PRIMARY_LSN_QUERY, Long.class);
+                return (lsn == null) ? Long.MAX_VALUE : lsn;
+            } catch (RuntimeException e) {
+                log.warn("Reading the primary's WAL position failed, the session reads from the primary", e);
+                return Long.MAX_VALUE;
+            }
+        };
+    }
+}
@@ -1,5 +1,6 @@
 package org.p2proto.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.config.YamlPropertiesFactoryBean;
 import org.springframework.context.MessageSource;
@@ -9,6 +10,9 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
 import org.springframework.context.support.ResourceBundleMessageSource;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
@@ -24,6 +28,8 @@ import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
 
+import java.util.List;
+
 @Configuration
 @EnableWebSecurity
 @EnableWebMvc
@@ -56,7 +62,7 @@ public class SecurityConfig implements WebMvcConfigurer {
                         .withHttpOnlyFalse())
                 )
             .authorizeRequests()
-                .antMatchers("/login", "/resources/**").permitAll()
+                .antMatchers("/login", "/resources/**", "/health/ready").permitAll()
                 .anyRequest().authenticated()
             .and()
             .oauth2Login() // Enables OAuth2 login with Keycloak
@@ -110,6 +116,24 @@ public class SecurityConfig implements WebMvcConfigurer {
                 //.resourceChain(true);
     }
 
+    /**
+     * The mapper behind the JSON message converters, for code that writes JSON itself
+     * (e.g. streamed responses), so it serializes exactly like the {@code @ResponseBody} endpoints.
+     */
+    @Bean
+    public ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        for (HttpMessageConverter<?> converter : converters) {
+            if (converter instanceof MappingJackson2HttpMessageConverter jackson) {
+                jackson.setObjectMapper(objectMapper());
+            }
+        }
+    }
+
     @Bean
     public MessageSource messageSource() {
         ResourceBundleMessageSource messageSource = new ResourceBundleMessageSource();
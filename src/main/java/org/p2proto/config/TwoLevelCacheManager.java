@@ -0,0 +1,98 @@
+package org.p2proto.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.p2proto.dto.CacheStats;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Wraps every cache of another {@link CacheManager} in a {@link VersionedCache}, and puts an
+ * {@link L1Cache} in front of selected ones.
+ * <p>
+ * Values loaded on a miss go into Infinispan with {@code putForExternalRead}: in an invalidation
+ * cache a plain put evicts the key on every other node, so each node caching what it read would
+ * empty the caches of the others. Only evictions invalidate cluster-wide.
+ */
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager {
+
+    private final CacheManager l2;
+    private final Set<String> l1CacheNames;
+    private final int l1MaxEntries;
+    private final Duration l1Ttl;
+    private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(CacheManager l2, Set<String> l1CacheNames, int l1MaxEntries, Duration l1Ttl) {
+        this.l2 = l2;
+        this.l1CacheNames = Set.copyOf(l1CacheNames);
+        this.l1MaxEntries = l1MaxEntries;
+        this.l1Ttl = l1Ttl;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = caches.get(name);
+        if (cache != null) return cache;
+        Cache target = l2.getCache(name);
+        if (target == null) return null;
+        return caches.computeIfAbsent(name, n -> {
+            Cache versioned = new VersionedCache(target, loadStore(target));
+            return l1CacheNames.contains(n) ? new L1Cache(versioned, l1MaxEntries, l1Ttl) : versioned;
+        });
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return l2.getCacheNames();
+    }
+
+    /**
+     * Statistics of both levels of every cache that has an L1, and of the L2 of all others.
+     * L2 numbers come from Infinispan and need {@code statistics="true"} on the cache.
+     */
+    public List<CacheStats> stats() {
+        List<CacheStats> out = new ArrayList<>();
+        for (String name : getCacheNames()) {
+            Cache cache = getCache(name);
+            if (cache instanceof L1Cache l1) out.add(l1.stats());
+            CacheStats l2Stats = infinispanStats(name, cache);
+            if (l2Stats != null) out.add(l2Stats);
+        }
+        return out;
+    }
+
+    /** How values loaded on a miss are written to {@code cache}, see the class comment. */
+    static BiConsumer<Object, Object> loadStore(Cache cache) {
+        org.infinispan.Cache<Object, Object> infinispan = infinispanCache(cache);
+        if (infinispan == null) return cache::put;
+        return infinispan.getAdvancedCache()::putForExternalRead;
+    }
+
+    private static CacheStats infinispanStats(String name, Cache cache) {
+        org.infinispan.Cache<Object, Object> infinispan = infinispanCache(cache);
+        if (infinispan == null) return null;
+        org.infinispan.stats.Stats s = infinispan.getAdvancedCache().getStats();
+        return new CacheStats(name, "L2", s.getHits(), s.getMisses(), s.getEvictions(),
+                s.getAverageReadTimeNanos() / 1000.0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static org.infinispan.Cache<Object, Object> infinispanCache(Cache cache) {
+        Object nativeCache = cache.getNativeCache();
+        if (nativeCache instanceof org.infinispan.Cache<?, ?> infinispan) {
+            return (org.infinispan.Cache<Object, Object>) infinispan;
+        }
+        if (!(nativeCache instanceof javax.cache.Cache<?, ?> jcache)) return null;
+        try {
+            return jcache.unwrap(org.infinispan.Cache.class);
+        } catch (IllegalArgumentException e) {
+            log.debug("Cache {} is not backed by Infinispan", cache.getName(), e);
+            return null;
+        }
+    }
+}
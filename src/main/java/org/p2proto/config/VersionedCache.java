@@ -0,0 +1,154 @@
+package org.p2proto.config;
+
+import org.springframework.cache.Cache;
+import org.springframework.lang.Nullable;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Cache decorator that only stores a loaded value if its key was not evicted while it loaded,
+ * like {@code TableCatalog} does for its snapshot.
+ * <p>
+ * Metadata caches are evicted after the writing transaction commits. A miss that read the
+ * database before that commit and stores its result after the eviction would otherwise cache
+ * the old state until the next change. Loads of one key are single-flight per node.
+ */
+public final class VersionedCache implements Cache {
+
+    private final Cache target;
+    private final BiConsumer<Object, Object> store;
+    private final EvictionGenerations generations = new EvictionGenerations();
+    private final Map<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    public VersionedCache(Cache target) {
+        this(target, target::put);
+    }
+
+    /**
+     * @param store how loaded values are written to {@code target}
+     */
+    VersionedCache(Cache target, BiConsumer<Object, Object> store) {
+        this.target = target;
+        this.store = store;
+    }
+
+    /** The versioned cache behind {@code cache}, looking through an {@link L1Cache}; {@code null} if none. */
+    @Nullable
+    public static VersionedCache unwrap(@Nullable Cache cache) {
+        if (cache instanceof L1Cache l1) cache = l1.getL2();
+        return (cache instanceof VersionedCache versioned) ? versioned : null;
+    }
+
+    /** Generations of all keys, to pass to {@link #putIfUnchanged} after loading many keys at once. */
+    public long[] generations() {
+        return generations.snapshot();
+    }
+
+    /**
+     * Stores a loaded value unless its key was evicted since {@code generations} was taken.
+     *
+     * @return whether the value was stored
+     */
+    public boolean putIfUnchanged(Object key, Object value, long[] generations) {
+        if (!this.generations.isCurrent(key, generations)) return false;
+        store.accept(key, value);
+        if (this.generations.isCurrent(key, generations)) return true;
+        target.evict(key);
+        return false;
+    }
+
+    @Override
+    public String getName() {
+        return target.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return target.getNativeCache();
+    }
+
+    @Override
+    @Nullable
+    public ValueWrapper get(Object key) {
+        return target.get(key);
+    }
+
+    @Override
+    @Nullable
+    public <T> T get(Object key, @Nullable Class<T> type) {
+        return target.get(key, type);
+    }
+
+    @Override
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = target.get(key);
+        if (cached != null) return (T) cached.get();
+
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            try {
+                return (T) running.join();
+            } catch (CompletionException e) {
+                throw new ValueRetrievalException(key, valueLoader, e.getCause());
+            }
+        }
+        try {
+            long generation = generations.current(key);
+            T value = valueLoader.call();
+            if (value != null && generations.isCurrent(key, generation)) {
+                store.accept(key, value);
+                if (!generations.isCurrent(key, generation)) target.evict(key);
+            }
+            mine.complete(value);
+            return value;
+        } catch (Exception e) {
+            mine.completeExceptionally(e);
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    @Override
+    public void put(Object key, @Nullable Object value) {
+        target.put(key, value);
+    }
+
+    @Override
+    @Nullable
+    public ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
+        return target.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        generations.bump(key);
+        target.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        generations.bump(key);
+        return target.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        generations.bumpAll();
+        target.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        generations.bumpAll();
+        return target.invalidate();
+    }
+}
@@ -0,0 +1,53 @@
+package org.p2proto.controller;
+
+import org.p2proto.config.PoolMetrics;
+import org.p2proto.config.TwoLevelCacheManager;
+import org.p2proto.dto.CacheStats;
+import org.p2proto.dto.ConnectionPoolStats;
+import org.p2proto.service.CatalogWarmup;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Probes for the container runtime and operational statistics. Only {@code /health/ready} is
+ * reachable without login; the statistics need an authenticated user.
+ */
+@RestController
+@RequestMapping("/health")
+public class HealthController {
+
+    private final CatalogWarmup catalogWarmup;
+    private final TwoLevelCacheManager cacheManager;
+    private final PoolMetrics poolMetrics;
+
+    public HealthController(CatalogWarmup catalogWarmup, TwoLevelCacheManager cacheManager, PoolMetrics poolMetrics) {
+        this.catalogWarmup = catalogWarmup;
+        this.cacheManager = cacheManager;
+        this.poolMetrics = poolMetrics;
+    }
+
+    /** 200 once startup work (the catalog warm-up) is done, 503 before. */
+    @GetMapping("/ready")
+    public ResponseEntity<Map<String, String>> ready() {
+        if (catalogWarmup.isReady()) return ResponseEntity.ok(Map.of("status", "UP"));
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("status", "STARTING"));
+    }
+
+    /** Hits, misses, evictions and average get time per cache and level (L1 on-heap, L2 Infinispan). */
+    @GetMapping("/caches")
+    public List<CacheStats> caches() {
+        return cacheManager.stats();
+    }
+
+    /** Connection pool: active, idle, pending, acquire-time histogram. */
+    @GetMapping("/pool")
+    public ConnectionPoolStats pool() {
+        return poolMetrics.snapshot();
+    }
+}
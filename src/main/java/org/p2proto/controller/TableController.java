@@ -1,50 +1,98 @@
 package org.p2proto.controller;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.p2proto.domain.DomainType;
+import org.p2proto.dto.BatchResult;
 import org.p2proto.dto.ColumnMetaData;
+import org.p2proto.dto.ImportResult;
+import org.p2proto.dto.RecordPage;
 import org.p2proto.dto.TableMetadata;
 import org.p2proto.model.record.FieldType;
 import org.p2proto.model.record.FormField;
 import org.p2proto.model.record.RecordForm;
+import org.p2proto.repository.CrudRepositoryRegistry;
+import org.p2proto.repository.JsonRowWriter;
 import org.p2proto.repository.TableMetadataCrudRepository;
-import org.p2proto.repository.table.TableRepository;
+import org.p2proto.repository.copy.CsvRecordReader;
+import org.p2proto.repository.copy.ExportFormat;
+import org.p2proto.repository.copy.NdjsonRecordReader;
+import org.p2proto.repository.copy.ParallelExporter;
+import org.p2proto.repository.copy.RecordReader;
+import org.p2proto.repository.table.TableCatalog;
 import org.p2proto.service.TableService;
+import org.p2proto.sql.Criterion;
+import org.p2proto.sql.FilterParser;
+import org.p2proto.sql.Sort;
+import org.springframework.dao.DataAccessException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 @Controller
 @RequestMapping("/table")
 public class TableController {
 
     private final TableService tableService;
-    private final TableRepository tableRepository;
+    private final TableCatalog tableCatalog;
+    private final CrudRepositoryRegistry repositories;
     private final HttpServletRequest request;
+    private final ObjectMapper objectMapper;
 
-    public TableController(TableService tableService, TableRepository tableRepository, HttpServletRequest request) {
+    /** Accept type selecting the columnar listing shape, same as {@code format=columnar}. */
+    public static final String COLUMNAR_MEDIA_TYPE = "application/vnd.p2proto.columnar+json";
+
+    private static final int EXPORT_BUFFER_BYTES = 64 * 1024;
+
+    public TableController(TableService tableService, TableCatalog tableCatalog,
+                           CrudRepositoryRegistry repositories, HttpServletRequest request,
+                           ObjectMapper objectMapper) {
         this.tableService = tableService;
-        this.tableRepository = tableRepository;
+        this.tableCatalog = tableCatalog;
+        this.repositories = repositories;
         this.request = request;
+        this.objectMapper = objectMapper;
     }
 
-    private Map<String, Object> buildTableData(String tableName, List<String> fieldsToRender) {
-        // Retrieve the TableMetadata for the given table name
-        UUID tableID = tableRepository.findAll().get(tableName);
-        TableMetadata tableMetadata = tableRepository.findByID(tableID);
+    private Map<String, Object> buildTableData(String tableName, List<String> fieldsToRender,
+                                               String[] filters, String sortParam,
+                                               String after, Integer limit, boolean columnar) {
+        // Retrieve the repository and TableMetadata for the given table name
+        TableMetadataCrudRepository repo = repositories.forTable(tableName);
+        TableMetadata tableMetadata = repo.getMeta();
 
         // Extract all column names from the metadata
         List<String> allColumns = tableMetadata.getColumns().stream()
                 .map(ColumnMetaData::getName)
                 .collect(Collectors.toList());
 
-        // Retrieve all rows from the CRUD repository
-        TableMetadataCrudRepository repo = new TableMetadataCrudRepository(tableService.getJdbcTemplate(), tableMetadata);
-        List<Map<String, Object>> records = repo.findAll();
+        // Filter and sort are pushed down to the database
+        Criterion criterion = FilterParser.parse(tableMetadata, filters);
+        Sort sort = Sort.parse(sortParam);
+
+        // Retrieve rows from the CRUD repository: one keyset page when paging was asked for, else everything
+        boolean paged = after != null || limit != null;
+        // Only the rendered fields (plus PK) are selected
+        RecordPage page = paged
+                ? repo.findPage(criterion, sort, fieldsToRender, after,
+                        Objects.requireNonNullElse(limit, TableMetadataCrudRepository.DEFAULT_PAGE_SIZE))
+                : new RecordPage(repo.findBy(criterion, sort, fieldsToRender), null);
+        List<Map<String, Object>> records = page.records();
 
         // Determine which fields to render: if none provided, render all columns
         List<String> fieldsToShow = (fieldsToRender == null || fieldsToRender.isEmpty())
@@ -69,28 +117,204 @@ public class TableController {
         data.put("allFields", allColumns);  // array of all column names
         data.put("fieldsToRender", fieldsToShow);  // array of fields to display
         data.put("columnLabels", columnLabels);
-        data.put("records", records);
+        if (columnar) {
+            // field names once, then one positional array per row
+            List<String> columns = tableMetadata.getProjection(fieldsToRender).stream()
+                    .map(ColumnMetaData::getName)
+                    .collect(Collectors.toList());
+            List<Object[]> rows = new ArrayList<>(records.size());
+            for (Map<String, Object> rec : records) {
+                Object[] row = new Object[columns.size()];
+                for (int i = 0; i < row.length; i++) row[i] = rec.get(columns.get(i));
+                rows.add(row);
+            }
+            data.put("columns", columns);
+            data.put("rows", rows);
+        } else {
+            data.put("records", records);
+        }
         data.put("tableName", tableName);
         data.put("tableLabel", tableMetadata.getTableLabel());
         data.put("tableLabelPlural", tableMetadata.getTablePluralLabel());
         data.put("contextPath", request.getContextPath());
         data.put("cellFormatters", cellFormatters);
+        if (paged) {
+            data.put("nextCursor", page.nextCursor());
+        }
         return data;
     }
 
     /**
      * Displays the list of records for a given table.
+     * Repeated {@code f} parameters filter server-side (see {@link FilterParser}),
+     * {@code sort=column} / {@code sort=-column} orders the result.
+     * With {@code after} and/or {@code limit} only one keyset page is returned,
+     * together with the {@code nextCursor} to pass as {@code after} for the next one.
+     * {@code format=columnar} (or {@link #COLUMNAR_MEDIA_TYPE} in Accept) replaces {@code records}
+     * with {@code columns} + positional {@code rows}.
      */
     @GetMapping("/{tableName}")
     public ResponseEntity<Map<String, Object>> listRecords(
             @PathVariable("tableName") String tableName,
-            @RequestParam(name = "fields", required = false) List<String> fieldsToRender
+            @RequestParam(name = "fields", required = false) List<String> fieldsToRender,
+            @RequestParam(name = "sort", required = false) String sort,
+            @RequestParam(name = "after", required = false) String after,
+            @RequestParam(name = "limit", required = false) Integer limit,
+            @RequestParam(name = "format", required = false) String format
     ) {
         if (fieldsToRender == null || fieldsToRender.isEmpty()) {
             fieldsToRender = applyTableView(tableName);
         }
-        Map<String, Object> data = buildTableData(tableName, fieldsToRender);
-        return ResponseEntity.ok(data);
+        // read raw values: a single f=... would otherwise be split on commas (breaks "in" lists)
+        String[] filters = request.getParameterValues("f");
+        try {
+            Map<String, Object> data = buildTableData(tableName, fieldsToRender, filters, sort, after, limit,
+                    isColumnar(format));
+            return ResponseEntity.ok(data);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    /**
+     * Streaming variant of {@link #listRecords} for exports: rows go from a server-side cursor
+     * straight to the response as they arrive, so memory stays flat for any table size and the
+     * first row is sent immediately. Takes the same {@code fields}, {@code f}, {@code sort} and
+     * {@code format} parameters; the response carries the field list and the {@code records}
+     * (or columnar {@code columns} + {@code rows}) only. Password columns are never streamed.
+     */
+    @GetMapping(value = "/{tableName}", params = "stream=true")
+    public void streamRecords(
+            @PathVariable("tableName") String tableName,
+            @RequestParam(name = "fields", required = false) List<String> fieldsToRender,
+            @RequestParam(name = "sort", required = false) String sort,
+            @RequestParam(name = "format", required = false) String format,
+            HttpServletResponse response
+    ) throws IOException {
+        if (fieldsToRender == null || fieldsToRender.isEmpty()) {
+            fieldsToRender = applyTableView(tableName);
+        }
+        TableMetadata tableMetadata = tableCatalog.findByName(tableName);
+        if (tableMetadata == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "Unknown table: " + tableName);
+            return;
+        }
+
+        // validate everything before the first byte is committed
+        Criterion criterion;
+        Sort order = Sort.parse(sort);
+        List<String> fields;
+        try {
+            criterion = FilterParser.parse(tableMetadata, request.getParameterValues("f"));
+            if (order != null) order.resolve(tableMetadata);
+            fields = tableMetadata.getProjection(fieldsToRender).stream()
+                    .filter(c -> !"PASSWORD".equalsIgnoreCase(c.getDomain().getInternalName()))
+                    .map(ColumnMetaData::getName)
+                    .collect(Collectors.toList());
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        try (JsonGenerator gen = objectMapper.createGenerator(response.getOutputStream(), JsonEncoding.UTF8)) {
+            gen.writeStartObject();
+            gen.writeStringField("tableName", tableName);
+            gen.writeObjectField("fieldsToRender", fields);
+            boolean columnar = isColumnar(format);
+            if (columnar) gen.writeObjectField("columns", fields);
+            gen.writeArrayFieldStart(columnar ? "rows" : "records");
+            tableService.streamRecords(tableMetadata, criterion, order, fields, new JsonRowWriter(gen, columnar));
+            gen.writeEndArray();
+            gen.writeEndObject();
+        }
+    }
+
+    /**
+     * Exports the table through COPY ... TO STDOUT, as CSV with a header ({@code format=csv}, default)
+     * or NDJSON ({@code format=ndjson}). Takes the {@code fields} and {@code f} parameters of
+     * {@link #listRecords}; password columns are never exported. The bytes go from the driver straight
+     * to the response, gzip-compressed on the fly when the client sends {@code Accept-Encoding: gzip}.
+     * <p>
+     * {@code parallel=N} reads N primary-key slices on separate connections; rows then come out in
+     * PK order with {@code ordered=true}, else in whatever order the slices deliver them. When running
+     * exports already hold their share of the connection pool, the request gets 503.
+     */
+    @GetMapping("/{tableName}/export")
+    public void exportRecords(
+            @PathVariable("tableName") String tableName,
+            @RequestParam(name = "fields", required = false) List<String> fieldsToExport,
+            @RequestParam(name = "format", required = false) String format,
+            @RequestParam(name = "parallel", defaultValue = "1") int parallel,
+            @RequestParam(name = "ordered", defaultValue = "false") boolean ordered,
+            HttpServletResponse response
+    ) throws IOException {
+        // validate everything before the first byte is committed
+        TableMetadata tableMetadata;
+        Criterion criterion;
+        ExportFormat exportFormat;
+        List<String> fields;
+        try {
+            TableMetadataCrudRepository repo = repositories.forTable(tableName);
+            if (parallel > 1 && !repo.supportsSlicing()) {
+                throw new IllegalArgumentException("Parallel export needs an integer or UUID primary key");
+            }
+            tableMetadata = repo.getMeta();
+            exportFormat = ExportFormat.parse(format);
+            criterion = FilterParser.parse(tableMetadata, request.getParameterValues("f"));
+            fields = tableMetadata.getProjection(fieldsToExport).stream()
+                    .filter(c -> !"PASSWORD".equalsIgnoreCase(c.getDomain().getInternalName()))
+                    .map(ColumnMetaData::getName)
+                    .collect(Collectors.toList());
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+
+        // refuse before the response is opened: once it is, the status is out
+        ParallelExporter.Admission admission = null;
+        if (parallel > 1) {
+            try {
+                admission = tableService.admitParallelExport(parallel);
+            } catch (RejectedExecutionException e) {
+                response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, e.getMessage());
+                return;
+            }
+        }
+
+        boolean gzip = acceptsGzip();
+        response.setContentType(exportFormat.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Content-Disposition",
+                "attachment; filename=\"" + tableName + "." + exportFormat.getExtension() + "\"");
+        response.setHeader("Vary", "Accept-Encoding");
+        if (gzip) response.setHeader("Content-Encoding", "gzip");
+
+        try (ParallelExporter.Admission held = admission;
+             OutputStream out = gzip
+                     ? new GZIPOutputStream(response.getOutputStream(), EXPORT_BUFFER_BYTES)
+                     : response.getOutputStream()) {
+            if (held != null) {
+                tableService.exportRecordsParallel(held, tableMetadata, criterion, fields, exportFormat, ordered, out);
+            } else {
+                tableService.exportRecords(tableMetadata, criterion, fields, exportFormat, out);
+            }
+        }
+    }
+
+    private boolean acceptsGzip() {
+        String acceptEncoding = request.getHeader("Accept-Encoding");
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
+
+    private boolean isColumnar(String format) {
+        if ("columnar".equalsIgnoreCase(format)) return true;
+        String accept = request.getHeader("Accept");
+        return accept != null && accept.contains(COLUMNAR_MEDIA_TYPE);
     }
 
     private List<String> applyTableView(String tableName) {
@@ -131,8 +355,7 @@ public class TableController {
 
     private Map<String, Object> prepareRecordPayload(String tableName, String recordId) {
 
-        UUID tableID = tableRepository.findAll().get(tableName);
-        TableMetadata meta = tableRepository.findByID(tableID);
+        TableMetadata meta = repositories.forTable(tableName).getMeta();
 
         // Build FormField list (keep original order from metadata)
         List<FormField> fields = meta.getColumns().stream()
@@ -141,9 +364,7 @@ public class TableController {
 
         // Populate values when editing
         if (recordId != null && !recordId.isBlank()) {
-            // NEW: repo ctor now takes (JdbcTemplate, TableMetadata)
-            TableMetadataCrudRepository repo =
-                    new TableMetadataCrudRepository(tableService.getJdbcTemplate(), meta);
+            TableMetadataCrudRepository repo = repositories.get(meta);
 
             // NEW: parse PK according to its domain
             Object pkValue = parsePk(recordId, meta.getPrimaryKeyMeta().getDomain());
@@ -239,12 +460,9 @@ public class TableController {
         }
 
         try {
-            // Retrieve TableMetadata based on tableName
-            UUID tableID = tableRepository.findAll().get(tableName);
-            TableMetadata tableMetadata = tableRepository.findByID(tableID);
-
-            // Initialize the repository
-            TableMetadataCrudRepository repo = new TableMetadataCrudRepository(tableService.getJdbcTemplate(), tableMetadata);
+            // Retrieve the repository (and its TableMetadata) based on tableName
+            TableMetadataCrudRepository repo = repositories.forTable(tableName);
+            TableMetadata tableMetadata = repo.getMeta();
 
             // Convert RecordForm to a Map<String, Object> for saving
             Map<String, Object> recordData = record.getFields().stream()
@@ -269,6 +487,127 @@ public class TableController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Saves many records in one transaction using JDBC batches. The body is a JSON array of
+     * records (field name to value); records with a primary key value update that row,
+     * the others are inserted.
+     */
+    @PostMapping(value = "/{tableName}/batch", consumes = "application/json")
+    public ResponseEntity<Map<String, Object>> saveRecords(
+            @PathVariable("tableName") String tableName,
+            @RequestBody List<Map<String, Object>> records
+    ) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            TableMetadata tableMetadata = repositories.forTable(tableName).getMeta();
+            ColumnMetaData pk = tableMetadata.getPrimaryKeyMeta();
+
+            List<Map<String, Object>> inserts = new ArrayList<>();
+            Map<Object, Map<String, Object>> updates = new LinkedHashMap<>();
+            for (Map<String, Object> rec : records) {
+                Object pkValue = rec.get(pk.getName());
+                if (pkValue == null || pkValue.toString().isBlank()) {
+                    rec.remove(pk.getName()); // let the database generate it
+                    inserts.add(rec);
+                } else {
+                    updates.put(parsePk(pkValue.toString(), pk.getDomain()), rec);
+                }
+            }
+
+            BatchResult result = tableService.saveRecords(tableMetadata, inserts, updates);
+            response.put("status", "success");
+            response.put("inserted", result.inserted());
+            response.put("updated", result.updated());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            e.printStackTrace();
+            response.put("status", "error");
+            response.put("message", "Failed to save the records. Please try again.");
+            return ResponseEntity.status(500).body(response);
+        }
+    }
+
+    /**
+     * Inserts or updates records in one statement per batch, without reading them first.
+     * The body is a JSON array of records; {@code on} names the unique column that identifies
+     * existing rows and defaults to the primary key.
+     */
+    @PostMapping(value = "/{tableName}/upsert", consumes = "application/json")
+    public ResponseEntity<Map<String, Object>> upsertRecords(
+            @PathVariable("tableName") String tableName,
+            @RequestParam(name = "on", required = false) String conflictColumn,
+            @RequestBody List<Map<String, Object>> records
+    ) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            TableMetadata tableMetadata = repositories.forTable(tableName).getMeta();
+            int affected = tableService.upsertRecords(tableMetadata, conflictColumn, records);
+            response.put("status", "success");
+            response.put("affected", affected);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            e.printStackTrace();
+            response.put("status", "error");
+            response.put("message", "Failed to save the records. Please try again.");
+            return ResponseEntity.status(500).body(response);
+        }
+    }
+
+    /**
+     * Bulk import through COPY, streamed from the request body: CSV with a header row
+     * ({@code text/csv}) or one JSON object per line ({@code application/x-ndjson}).
+     * Records that cannot be converted are skipped and reported by line; more than
+     * {@code maxErrors} of them abort the import, which then writes nothing.
+     */
+    @PostMapping(value = "/{tableName}/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<Map<String, Object>> importRecords(
+            @PathVariable("tableName") String tableName,
+            @RequestParam(name = "maxErrors", defaultValue = "100") long maxErrors
+    ) {
+        Map<String, Object> response = new HashMap<>();
+        try (RecordReader reader = openRecordReader()) {
+            TableMetadata tableMetadata = repositories.forTable(tableName).getMeta();
+            ImportResult result = tableService.importRecords(tableMetadata, reader, maxErrors);
+            response.put("status", "success");
+            response.put("imported", result.imported());
+            response.put("rejected", result.rejected());
+            response.put("errors", result.errors());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (DataAccessException e) {
+            // e.g. a constraint violation; the driver message names the offending COPY line
+            response.put("status", "error");
+            response.put("message", e.getMostSpecificCause().getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            e.printStackTrace();
+            response.put("status", "error");
+            response.put("message", "Failed to import the records. Please try again.");
+            return ResponseEntity.status(500).body(response);
+        }
+    }
+
+    private RecordReader openRecordReader() throws IOException {
+        Charset charset = (request.getCharacterEncoding() != null)
+                ? Charset.forName(request.getCharacterEncoding()) : StandardCharsets.UTF_8;
+        Reader body = new InputStreamReader(request.getInputStream(), charset);
+        String contentType = request.getContentType();
+        return (contentType != null && contentType.startsWith("text/csv"))
+                ? new CsvRecordReader(body)
+                : new NdjsonRecordReader(body);
+    }
+
     /**
      * Deletes a record by its ID for a given table.
      */
@@ -279,15 +618,10 @@ public class TableController {
     ) {
         Map<String, String> response = new HashMap<>();
         try {
-            // 1. Retrieve table metadata
-            UUID tableID = tableRepository.findAll().get(tableName);
-            TableMetadata tableMetadata = tableRepository.findByID(tableID);
-
-            // 2. Initialize repository
-            TableMetadataCrudRepository repo =
-                    new TableMetadataCrudRepository(tableService.getJdbcTemplate(), tableMetadata);
+            // 1. Retrieve the table's repository
+            TableMetadataCrudRepository repo = repositories.forTable(tableName);
 
-            // 3. Perform the delete
+            // 2. Perform the delete
             repo.delete(Integer.valueOf(id));
 
             // If successful, return success response
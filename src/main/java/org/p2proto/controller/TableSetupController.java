@@ -3,10 +3,13 @@ package org.p2proto.controller;
 import lombok.extern.slf4j.Slf4j;
 import org.p2proto.dto.ColumnMetaData;
 import org.p2proto.dto.CurrentUser;
+import org.p2proto.dto.DdlJob;
 import org.p2proto.dto.TableMetadata;
 import org.p2proto.dto.TableSummary;
 import org.p2proto.repository.table.TableRepository;
+import org.p2proto.service.DdlJobService;
 import org.p2proto.service.TableService;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.stereotype.Controller;
@@ -14,6 +17,7 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Controller for creating/updating table metadata (immutable TableMetadata).
@@ -23,12 +27,12 @@ import java.util.*;
 @Slf4j
 public class TableSetupController {
 
-    private final TableService tableService;
     private final TableRepository tableRepository;
+    private final DdlJobService ddlJobService;
 
-    public TableSetupController(TableService tableService, TableRepository tableRepository) {
-        this.tableService = tableService;
+    public TableSetupController(TableRepository tableRepository, DdlJobService ddlJobService) {
         this.tableRepository = tableRepository;
+        this.ddlJobService = ddlJobService;
     }
 
     // list tables as JSON (used by TableSetupListLoader)
@@ -113,17 +117,39 @@ public class TableSetupController {
                 .build();
 
         if (meta.getId() == null) {
-            tableService.createTable(meta, currentUser);
-        } else {
-            tableRepository.updateMetadataInDb(meta);
+            // DDL runs on the job pool; the client polls jobs/{jobId} for the outcome
+            DdlJob job;
+            try {
+                job = ddlJobService.submitCreateTable(meta, currentUser);
+            } catch (RejectedExecutionException e) {
+                Map<String, String> error = new HashMap<>();
+                error.put("status", "error");
+                error.put("message", "Too many pending table changes, try again later");
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+            }
+            Map<String, String> response = new HashMap<>();
+            response.put("status", "success");
+            response.put("jobId", String.valueOf(job.jobId()));
+            response.put("statusUrl", "tableSetup/jobs/" + job.jobId());
+            response.put("redirectUrl", "tableSetup");
+            return ResponseEntity.accepted().body(response);
         }
 
+        tableRepository.updateMetadataInDb(meta);
+
         Map<String, String> response = new HashMap<>();
         response.put("status", "success");
         response.put("redirectUrl", "tableSetup");
         return ResponseEntity.ok(response);
     }
 
+    // status of a table create queued by saveTable
+    @GetMapping(value = "/jobs/{jobId}", produces = "application/json")
+    @ResponseBody
+    public ResponseEntity<DdlJob> getJob(@PathVariable("jobId") long jobId) {
+        return ResponseEntity.of(ddlJobService.find(jobId));
+    }
+
     /**
      * Form-backing bean so Spring can bind request params before we build the immutable TableMetadata.
      * If you prefer, move this to its own file.
@@ -0,0 +1,58 @@
+package org.p2proto.ddl;
+
+import liquibase.change.AddColumnConfig;
+import liquibase.change.Change;
+import liquibase.change.core.AddColumnChange;
+import liquibase.statement.DatabaseFunction;
+import lombok.Data;
+import org.p2proto.dto.ColumnDefaultHolder;
+import org.p2proto.dto.ColumnMetaData;
+
+import java.util.Objects;
+
+/**
+ * Adds a nullable column to an existing table.
+ * <p>
+ * Limited to what PostgreSQL does as a catalog-only change, without rewriting the table:
+ * no primary key, no auto-increment (its {@code nextval} default is volatile) and no unique
+ * constraint (its index would be built under the ACCESS EXCLUSIVE lock; add the column, then
+ * a {@link CreateIndexCommand}). A server-side default must be non-volatile, e.g.
+ * {@code CURRENT_TIMESTAMP}.
+ */
+@Data
+public class AddColumnCommand implements DDLCommand {
+
+    private final String tableName;
+    private final ColumnMetaData column;
+
+    public AddColumnCommand(String tableName, ColumnMetaData column) {
+        this.tableName = Objects.requireNonNull(tableName, "tableName");
+        this.column = Objects.requireNonNull(column, "column");
+        if (Boolean.TRUE.equals(column.getPrimaryKey()) || column.getDomain().isAutoIncrement()) {
+            throw new IllegalArgumentException("Cannot add a primary key or auto-increment column: " + column.getName());
+        }
+        if (column.hasUniqueConstraint()) {
+            throw new IllegalArgumentException("Add unique column " + column.getName()
+                    + " without the constraint and create a unique index concurrently");
+        }
+    }
+
+    @Override
+    public Change getChange() {
+        AddColumnConfig columnConfig = new AddColumnConfig();
+        columnConfig.setName(column.getName());
+        columnConfig.setType(column.getDomain().getLiquibaseType());
+
+        ColumnDefaultHolder def = column.getDefaultValue();
+        if (def != null
+                && def.getExecutionContext() == ColumnDefaultHolder.ExecutionContext.SERVER_SIDE
+                && def.getTriggerEvent() == ColumnDefaultHolder.TriggerEvent.ON_CREATE) {
+            columnConfig.setDefaultValueComputed(new DatabaseFunction(def.getValue()));
+        }
+
+        AddColumnChange result = new AddColumnChange();
+        result.setTableName(tableName);
+        result.addColumn(columnConfig);
+        return result;
+    }
+}
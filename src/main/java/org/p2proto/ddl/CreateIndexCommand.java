@@ -0,0 +1,60 @@
+package org.p2proto.ddl;
+
+import liquibase.change.Change;
+import liquibase.change.core.RawSQLChange;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * {@code CREATE [UNIQUE] INDEX CONCURRENTLY}: builds the index without blocking writes to the table.
+ * <p>
+ * Cannot run inside a transaction block. A failed build leaves an INVALID index behind, which
+ * {@link #getCleanupChange()} drops (also concurrently) before the next attempt.
+ */
+@Data
+public class CreateIndexCommand implements DDLCommand {
+
+    /** PostgreSQL truncates longer identifiers. */
+    static final int MAX_IDENTIFIER_LENGTH = 63;
+
+    private final String tableName;
+    private final List<String> columnNames;
+    private final boolean unique;
+    private final String indexName;
+
+    public CreateIndexCommand(String tableName, List<String> columnNames, boolean unique) {
+        this.tableName = Objects.requireNonNull(tableName, "tableName");
+        if (columnNames == null || columnNames.isEmpty()) {
+            throw new IllegalArgumentException("An index needs at least one column");
+        }
+        this.columnNames = List.copyOf(columnNames);
+        this.unique = unique;
+        this.indexName = indexName(tableName, this.columnNames, unique);
+    }
+
+    static String indexName(String tableName, List<String> columnNames, boolean unique) {
+        String name = (unique ? "ux_" : "ix_") + tableName + "_" + String.join("_", columnNames);
+        if (name.length() <= MAX_IDENTIFIER_LENGTH) return name;
+        // keep names distinct after truncation
+        String hash = Integer.toHexString(name.hashCode());
+        return name.substring(0, MAX_IDENTIFIER_LENGTH - hash.length() - 1) + "_" + hash;
+    }
+
+    @Override
+    public Change getChange() {
+        return new RawSQLChange("CREATE " + (unique ? "UNIQUE " : "") + "INDEX CONCURRENTLY " + indexName
+                + " ON " + tableName + " (" + String.join(", ", columnNames) + ")");
+    }
+
+    @Override
+    public boolean isTransactional() {
+        return false;
+    }
+
+    @Override
+    public Change getCleanupChange() {
+        return new RawSQLChange("DROP INDEX CONCURRENTLY IF EXISTS " + indexName);
+    }
+}
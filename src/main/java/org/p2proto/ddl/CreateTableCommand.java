@@ -63,6 +63,10 @@ public class CreateTableCommand implements DDLCommand {
                 ConstraintsConfig pk = new ConstraintsConfig();
                 pk.setPrimaryKey(Boolean.TRUE);
                 columnConfig.setConstraints(pk);
+            } else if (column.hasUniqueConstraint()) {
+                ConstraintsConfig unique = new ConstraintsConfig();
+                unique.setUnique(Boolean.TRUE);
+                columnConfig.setConstraints(unique);
             }
 
             ColumnDefaultHolder def = column.getDefaultValue();
@@ -4,4 +4,20 @@ import liquibase.change.Change;
 
 public interface DDLCommand {
     Change getChange();
+
+    /**
+     * Whether the statements may run inside the caller's transaction. Commands that may not
+     * (e.g. {@code CREATE INDEX CONCURRENTLY}) go through {@link DDLExecutor#executeOnline}.
+     */
+    default boolean isTransactional() {
+        return true;
+    }
+
+    /**
+     * Undoes what a failed non-transactional attempt left behind (e.g. an INVALID index),
+     * run before the next attempt; {@code null} when there is nothing to undo.
+     */
+    default Change getCleanupChange() {
+        return null;
+    }
 }
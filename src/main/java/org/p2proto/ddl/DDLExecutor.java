@@ -1,5 +1,6 @@
 package org.p2proto.ddl;
 
+import liquibase.change.Change;
 import liquibase.database.Database;
 import liquibase.database.DatabaseFactory;
 import liquibase.database.jvm.JdbcConnection;
@@ -17,15 +18,44 @@ import org.springframework.transaction.annotation.Transactional;
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Savepoint;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
+/**
+ * Runs {@link DDLCommand}s with a short {@code lock_timeout}, so DDL that queues behind a long
+ * transaction gives up instead of blocking every query on the table behind its own lock request,
+ * and retries with exponential backoff. Only lock failures are retried; a statement that hits
+ * {@code statement_timeout} is slow in itself and fails.
+ * <p>
+ * Non-transactional commands ({@link #executeOnline}) run without either timeout: their locks do
+ * not block reads or writes, so waiting is harmless, while giving up would leave half-built
+ * objects behind. Deadlocks are still retried.
+ * <p>
+ * Settings (system properties): {@code p2proto.ddl.lockTimeoutMs} (default 2000),
+ * {@code p2proto.ddl.statementTimeoutMs} (default 60000, transactional commands only),
+ * {@code p2proto.ddl.maxAttempts} (default 5), {@code p2proto.ddl.backoffMs} (default 200).
+ */
 @Service
 @Slf4j
 public class DDLExecutor {
 
+    /** lock_not_available: lock_timeout expired. */
+    static final String LOCK_NOT_AVAILABLE = "55P03";
+    /** deadlock_detected */
+    static final String DEADLOCK_DETECTED = "40P01";
+    /** duplicate_table: the object existed before, so it is not ours to clean up. */
+    static final String DUPLICATE_TABLE = "42P07";
+
+    private static final long MAX_BACKOFF_MS = 5_000;
+
     private final DataSource dataSource;
+    private final long lockTimeoutMs = Long.getLong("p2proto.ddl.lockTimeoutMs", 2_000);
+    private final long statementTimeoutMs = Long.getLong("p2proto.ddl.statementTimeoutMs", 60_000);
+    private final int maxAttempts = Math.max(1, Integer.getInteger("p2proto.ddl.maxAttempts", 5));
+    private final long backoffMs = Long.getLong("p2proto.ddl.backoffMs", 200);
 
     @Autowired
     public DDLExecutor(DataSource dataSource) {
@@ -35,39 +65,145 @@ public class DDLExecutor {
     /**
      * Executes all generated DDL statements. The transaction should be
      * handled outside (e.g., via @Transactional on the caller).
+     * Each attempt runs under a savepoint, so a retry does not abort the caller's transaction;
+     * the timeouts are scoped to the statements ({@code SET LOCAL}, reset afterwards).
      */
     @Transactional
     public List<String> executeDDL(DDLCommand command) throws SQLException, DatabaseException {
-        List<String> executed = new ArrayList<>();
+        if (!command.isTransactional()) {
+            throw new IllegalArgumentException(command.getClass().getSimpleName()
+                    + " cannot run in a transaction, use executeOnline");
+        }
         // Obtain the existing transaction-bound connection, if any
         Connection connection = DataSourceUtils.getConnection(dataSource);
 
         // We will close the Statement, but not the Connection itself.
         // The transaction manager will properly commit/rollback/close.
         try (Statement stmt = connection.createStatement()) {
+            List<String> sqlTexts = generateSql(connection, command.getChange());
+
+            stmt.execute("SET LOCAL lock_timeout = " + lockTimeoutMs);
+            stmt.execute("SET LOCAL statement_timeout = " + statementTimeoutMs);
+            executeWithRetry(connection, stmt, sqlTexts, maxAttempts, backoffMs);
+            stmt.execute("SET LOCAL lock_timeout TO DEFAULT");
+            stmt.execute("SET LOCAL statement_timeout TO DEFAULT");
+            return sqlTexts;
+
+        } finally {
+            // Return the Connection to the transaction manager or pool
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
 
-            Database database = DatabaseFactory
-                    .getInstance()
-                    .findCorrectDatabaseImplementation(new JdbcConnection(connection));
+    /**
+     * Executes a command that cannot run in a transaction block, such as {@link CreateIndexCommand},
+     * on its own autocommit connection. No timeouts apply: building an index on a large table
+     * takes as long as it takes, without blocking writes.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<String> executeOnline(DDLCommand command) throws SQLException, DatabaseException {
+        try (Connection connection = dataSource.getConnection();
+             Statement stmt = connection.createStatement()) {
+            connection.setAutoCommit(true);
+            List<String> sqlTexts = generateSql(connection, command.getChange());
+            List<String> cleanup = command.getCleanupChange() == null
+                    ? List.of() : generateSql(connection, command.getCleanupChange());
 
-            // Generate all SQL statements from Liquibase
-            List<String> sqlTexts = new ArrayList<>();
-            for (SqlStatement liquibaseStmt : command.getChange().generateStatements(database)) {
-                Sql[] sqlArray = SqlGeneratorFactory.getInstance().generateSql(liquibaseStmt, database);
-                for (Sql sql : sqlArray) {
-                    sqlTexts.add(sql.toString());
+            executeOnlineWithRetry(stmt, sqlTexts, cleanup, maxAttempts, backoffMs);
+            return sqlTexts;
+        }
+    }
+
+    /**
+     * Runs the statements in autocommit mode, retrying after a lock failure. A retry first runs
+     * the cleanup, as part of the attempt: a cleanup that hits a lock failure is retried as well.
+     * <p>
+     * A failure that is not retried, or the last one, runs the cleanup once more: e.g. a unique
+     * violation while building a unique index leaves an INVALID index, which would make every
+     * later attempt fail as a duplicate. Not after {@value #DUPLICATE_TABLE}, which means the
+     * object was there before. A failure of that cleanup is added to the original exception as
+     * suppressed.
+     */
+    static void executeOnlineWithRetry(Statement stmt, List<String> sqlTexts, List<String> cleanup,
+                                       int maxAttempts, long backoffMs) throws SQLException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                if (attempt > 1) {
+                    for (String sql : cleanup) stmt.execute(sql);
+                }
+                for (String sql : sqlTexts) stmt.execute(sql);
+                return;
+            } catch (SQLException e) {
+                if (!isRetryable(e) || attempt >= maxAttempts) {
+                    if (!DUPLICATE_TABLE.equals(e.getSQLState())) {
+                        try {
+                            for (String sql : cleanup) stmt.execute(sql);
+                        } catch (SQLException cleanupFailure) {
+                            e.addSuppressed(cleanupFailure);
+                        }
+                    }
+                    throw e;
                 }
+                log.warn("DDL attempt {}/{} failed ({}), retrying: {}", attempt, maxAttempts,
+                        e.getSQLState(), sqlTexts);
+                sleep(backoff(attempt, backoffMs));
             }
+        }
+    }
 
-            for (String sql : sqlTexts) {
-                stmt.execute(sql);
-                executed.add(sql);
+    /**
+     * Runs the statements under a savepoint, rolling back to it and retrying after a lock failure.
+     */
+    static void executeWithRetry(Connection connection, Statement stmt, List<String> sqlTexts,
+                                 int maxAttempts, long backoffMs) throws SQLException {
+        for (int attempt = 1; ; attempt++) {
+            Savepoint savepoint = connection.setSavepoint();
+            try {
+                for (String sql : sqlTexts) stmt.execute(sql);
+                connection.releaseSavepoint(savepoint);
+                return;
+            } catch (SQLException e) {
+                connection.rollback(savepoint);
+                if (!isRetryable(e) || attempt >= maxAttempts) throw e;
+                log.warn("DDL attempt {}/{} failed ({}), retrying: {}", attempt, maxAttempts,
+                        e.getSQLState(), sqlTexts);
+                sleep(backoff(attempt, backoffMs));
             }
+        }
+    }
 
-        } finally {
-            // Return the Connection to the transaction manager or pool
-            DataSourceUtils.releaseConnection(connection, dataSource);
+    static boolean isRetryable(SQLException e) {
+        return LOCK_NOT_AVAILABLE.equals(e.getSQLState()) || DEADLOCK_DETECTED.equals(e.getSQLState());
+    }
+
+    /** Exponential backoff with full jitter, capped at {@link #MAX_BACKOFF_MS}. */
+    static long backoff(int attempt, long baseMs) {
+        long cap = Math.min(MAX_BACKOFF_MS, baseMs << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    private static void sleep(long millis) throws SQLException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting to retry DDL", e);
+        }
+    }
+
+    // Generate all SQL statements from Liquibase
+    private static List<String> generateSql(Connection connection, Change change) throws DatabaseException {
+        Database database = DatabaseFactory
+                .getInstance()
+                .findCorrectDatabaseImplementation(new JdbcConnection(connection));
+
+        List<String> sqlTexts = new ArrayList<>();
+        for (SqlStatement liquibaseStmt : change.generateStatements(database)) {
+            Sql[] sqlArray = SqlGeneratorFactory.getInstance().generateSql(liquibaseStmt, database);
+            for (Sql sql : sqlArray) {
+                sqlTexts.add(sql.toString());
+            }
         }
-        return executed;
+        return sqlTexts;
     }
 }
@@ -0,0 +1,31 @@
+package org.p2proto.ddl;
+
+import liquibase.change.Change;
+import liquibase.change.core.DropColumnChange;
+import lombok.Data;
+
+import java.util.Objects;
+
+/**
+ * Drops a column. PostgreSQL only marks it dropped in the catalog; the space is reclaimed
+ * as rows are rewritten, so this does not rewrite the table either.
+ */
+@Data
+public class DropColumnCommand implements DDLCommand {
+
+    private final String tableName;
+    private final String columnName;
+
+    public DropColumnCommand(String tableName, String columnName) {
+        this.tableName = Objects.requireNonNull(tableName, "tableName");
+        this.columnName = Objects.requireNonNull(columnName, "columnName");
+    }
+
+    @Override
+    public Change getChange() {
+        DropColumnChange result = new DropColumnChange();
+        result.setTableName(tableName);
+        result.setColumnName(columnName);
+        return result;
+    }
+}
@@ -0,0 +1,9 @@
+package org.p2proto.dto;
+
+/**
+ * Outcome of a batch save.
+ *
+ * @param inserted number of inserted rows
+ * @param updated  number of updated rows
+ */
+public record BatchResult(int inserted, int updated) {}
@@ -0,0 +1,10 @@
+package org.p2proto.dto;
+
+/**
+ * Counters of one cache level since startup.
+ *
+ * @param level {@code L1} (on-heap, per node) or {@code L2} (Infinispan)
+ */
+public record CacheStats(String cache, String level, long hits, long misses, long evictions,
+                         double averageGetMicros) {
+}
@@ -11,6 +11,10 @@ import java.util.UUID;
 @Data
 @AllArgsConstructor
 public class ColumnMetaData {
+
+    /** Additional property declaring a unique constraint on the column ({@code "true"}). */
+    public static final String UNIQUE_KEY = "column.unique";
+
     private UUID id;
     private final String name;        // Column name
     private final String label;       // Column label
@@ -24,6 +28,11 @@ public class ColumnMetaData {
         this(null, name, label, dataType, false, false, defaultValue, additionalProperties);
     }
 
+    /** True when the column is declared unique via {@link #UNIQUE_KEY}. */
+    public boolean hasUniqueConstraint() {
+        return additionalProperties != null && Boolean.parseBoolean(additionalProperties.get(UNIQUE_KEY));
+    }
+
     /**
      * Utility method to generate FormField representation.
      */
@@ -0,0 +1,13 @@
+package org.p2proto.dto;
+
+import java.util.Map;
+
+/**
+ * State of the JDBC connection pool and its counters since startup.
+ *
+ * @param pending        threads waiting for a connection
+ * @param acquireMillis  connection acquire times: count per upper bucket bound in ms ({@code "+Inf"} for the rest)
+ */
+public record ConnectionPoolStats(String pool, int active, int idle, int pending, int total, int max,
+                                  Map<String, Long> acquireMillis, long timeouts, double averageUsageMillis) {
+}
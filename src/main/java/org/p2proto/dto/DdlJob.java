@@ -0,0 +1,19 @@
+package org.p2proto.dto;
+
+import org.p2proto.model.component.ComponentHistory.ComponentHistoryStatus;
+
+import java.util.UUID;
+
+/**
+ * State of an asynchronous DDL job.
+ *
+ * @param jobId   id of the job's {@code component_history} entry
+ * @param tableId component id of the table the job works on
+ * @param status  IN_PROGRESS until the job commits (COMPLETED) or fails (FAILED)
+ */
+public record DdlJob(long jobId, UUID tableId, ComponentHistoryStatus status) {
+
+    public boolean isDone() {
+        return status != ComponentHistoryStatus.IN_PROGRESS;
+    }
+}
@@ -0,0 +1,19 @@
+package org.p2proto.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk import.
+ *
+ * @param imported rows written
+ * @param rejected rows skipped because they could not be converted
+ * @param errors   the first rejected rows with their reason
+ */
+public record ImportResult(long imported, long rejected, List<RowError> errors) {
+
+    /**
+     * @param line    input line the rejected record starts on (1-based)
+     * @param message why it was rejected
+     */
+    public record RowError(long line, String message) {}
+}
@@ -0,0 +1,12 @@
+package org.p2proto.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One keyset page of records.
+ *
+ * @param records    rows of the page, in sort order
+ * @param nextCursor opaque cursor for the following page, or {@code null} on the last page
+ */
+public record RecordPage(List<Map<String, Object>> records, String nextCursor) {}
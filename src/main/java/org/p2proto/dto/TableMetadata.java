@@ -45,7 +45,37 @@ public class TableMetadata extends TableSummary {
 
     /** SELECT generator using column-provided projections. */
     public String generateSelectStatement() {
-        String cols = columns.stream()
+        return selectFrom(columns);
+    }
+
+    /**
+     * SELECT generator limited to the given fields (plus the primary key), see {@link #getProjection}.
+     * Formula columns are emitted as their inlined expression over physical columns,
+     * so they need no extra columns fetched alongside them.
+     */
+    public String generateSelectStatement(Collection<String> fields) {
+        return selectFrom(getProjection(fields));
+    }
+
+    /**
+     * Columns to read for the requested field names, in table order, always including the PK.
+     * {@code null} or empty means every column.
+     *
+     * @throws IllegalArgumentException for a name that is not a column of this table
+     */
+    public List<ColumnMetaData> getProjection(Collection<String> fields) {
+        if (fields == null || fields.isEmpty()) return columns;
+        for (String f : fields) {
+            if (!columnsByName.containsKey(f)) throw new IllegalArgumentException("Column not found: " + f);
+        }
+        String pk = primaryKeyMeta.getName();
+        return columns.stream()
+                .filter(c -> c.getName().equals(pk) || fields.contains(c.getName()))
+                .collect(Collectors.toUnmodifiableList());
+    }
+
+    private String selectFrom(List<ColumnMetaData> projection) {
+        String cols = projection.stream()
                 .map(c -> c.generateSelectPart())
                 .collect(Collectors.joining(", "));
         return "SELECT " + cols + " FROM " + getTableName();
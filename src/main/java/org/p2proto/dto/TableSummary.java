@@ -3,15 +3,19 @@ package org.p2proto.dto;
 import lombok.Builder;
 import lombok.Getter;
 
+import java.io.Serializable;
 import java.util.UUID;
 
 /**
  * Base class containing basic table information without columns.
  * Used for table listings where column details are not needed.
+ * Serializable so the listings can be replicated in a clustered {@code tableSummaries} cache.
  */
 @Getter
 @Builder(builderMethodName = "summaryBuilder")
-public class TableSummary {
+public class TableSummary implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     private final UUID id;
     private final String tableName;            // Physical name
     private final String tableLabel;           // Singular label
@@ -0,0 +1,65 @@
+package org.p2proto.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.p2proto.dto.TableMetadata;
+import org.p2proto.repository.table.TableCatalog;
+import org.p2proto.repository.table.TableMetadataChangedEvent;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One {@link TableMetadataCrudRepository} per table, shared across requests, so its precomputed
+ * SQL is built once per metadata version instead of on every call. All repositories share one
+ * {@link NamedParameterJdbcTemplate}, and with it the parsed-statement cache.
+ * <p>
+ * A metadata version is a {@link TableMetadata} instance: a repository is only handed out for the
+ * instance it was built from, so a reload into the {@link TableCatalog} rebuilds it on next use.
+ * Entries are also dropped once a {@link TableMetadataChangedEvent} commits.
+ */
+@Slf4j
+@Component
+public class CrudRepositoryRegistry {
+
+    private final NamedParameterJdbcTemplate namedJdbc;
+    private final TableCatalog tableCatalog;
+    private final Map<UUID, TableMetadataCrudRepository> repositories = new ConcurrentHashMap<>();
+
+    public CrudRepositoryRegistry(JdbcTemplate jdbcTemplate, TableCatalog tableCatalog) {
+        this.namedJdbc = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.tableCatalog = tableCatalog;
+    }
+
+    /**
+     * @param tableName logical table name
+     * @throws IllegalArgumentException if there is no such table
+     */
+    public TableMetadataCrudRepository forTable(String tableName) {
+        TableMetadata meta = tableCatalog.findByName(tableName);
+        if (meta == null) throw new IllegalArgumentException("Unknown table: " + tableName);
+        return get(meta);
+    }
+
+    public TableMetadataCrudRepository get(TableMetadata meta) {
+        TableMetadataCrudRepository repo = repositories.get(meta.getId());
+        if (repo != null && repo.getMeta() == meta) return repo;
+
+        repo = new TableMetadataCrudRepository(namedJdbc, meta);
+        if (meta.getId() != null) repositories.put(meta.getId(), repo);
+        return repo;
+    }
+
+    public void invalidate(UUID tableId) {
+        if (repositories.remove(tableId) != null) log.debug("Dropped repository of table {}", tableId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMetadataChanged(TableMetadataChangedEvent event) {
+        invalidate(event.tableId());
+    }
+}
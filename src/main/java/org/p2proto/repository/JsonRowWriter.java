@@ -0,0 +1,68 @@
+package org.p2proto.repository;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.support.JdbcUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Objects;
+
+/**
+ * Writes each row of a result set straight to a {@link JsonGenerator}, without building an
+ * intermediate map per row: as a JSON object keyed by column label, or in columnar mode as a
+ * positional array in select-list order. Column labels are read once, from the first row.
+ * The generator must have a codec (e.g. created via {@code ObjectMapper.createGenerator}).
+ */
+public class JsonRowWriter implements RowCallbackHandler {
+
+    private final JsonGenerator gen;
+    private final boolean columnar;
+    private String[] labels;
+    private long rowCount;
+
+    public JsonRowWriter(JsonGenerator gen) {
+        this(gen, false);
+    }
+
+    public JsonRowWriter(JsonGenerator gen, boolean columnar) {
+        this.gen = Objects.requireNonNull(gen, "gen");
+        this.columnar = columnar;
+    }
+
+    @Override
+    public void processRow(ResultSet rs) throws SQLException {
+        if (labels == null) labels = labels(rs.getMetaData());
+        try {
+            if (columnar) {
+                gen.writeStartArray();
+                for (int i = 0; i < labels.length; i++) gen.writeObject(JdbcUtils.getResultSetValue(rs, i + 1));
+                gen.writeEndArray();
+            } else {
+                gen.writeStartObject();
+                for (int i = 0; i < labels.length; i++) {
+                    gen.writeFieldName(labels[i]);
+                    gen.writeObject(JdbcUtils.getResultSetValue(rs, i + 1));
+                }
+                gen.writeEndObject();
+            }
+            // get the first row to the client right away; after that the generator buffer decides
+            if (++rowCount == 1) gen.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    private static String[] labels(ResultSetMetaData md) throws SQLException {
+        String[] out = new String[md.getColumnCount()];
+        for (int i = 0; i < out.length; i++) out[i] = JdbcUtils.lookupColumnName(md, i + 1);
+        return out;
+    }
+}
@@ -0,0 +1,153 @@
+package org.p2proto.repository;
+
+import org.p2proto.domain.DomainType;
+import org.p2proto.dto.ColumnMetaData;
+import org.p2proto.dto.TableMetadata;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Row mapper compiled once per {@link TableMetadata} instance and projection.
+ * <p>
+ * Replaces Spring's {@code ColumnMapRowMapper}: instead of a {@code LinkedCaseInsensitiveMap}
+ * per row, built through result-set metadata lookups and generic {@code getObject} calls, each
+ * slot is read by position with a getter chosen up front from the column's {@link DomainType}
+ * into a fixed {@code Object[]}. Rows are exposed as a read-only {@link Map} view over that
+ * array, sharing one name index per mapper, so callers keep working with maps.
+ * <p>
+ * Value types are the same as the driver's {@code getObject} returns for these columns
+ * (e.g. {@code java.sql.Timestamp} for DATETIME), so the JSON wire format does not change.
+ * Cached mappers are dropped together with the {@link TableMetadata} instance they were built for,
+ * so a metadata reload compiles fresh ones.
+ */
+public final class RecordRowMapper implements RowMapper<Map<String, Object>> {
+
+    private static final Map<TableMetadata, Map<List<String>, RecordRowMapper>> CACHE =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final String[] names;
+    private final Map<String, Integer> index;
+    private final SlotReader[] readers;
+
+    private RecordRowMapper(List<ColumnMetaData> projection) {
+        int n = projection.size();
+        this.names = new String[n];
+        this.readers = new SlotReader[n];
+        Map<String, Integer> idx = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            ColumnMetaData c = projection.get(i);
+            names[i] = c.getName();
+            readers[i] = readerFor(c.getDomain());
+            idx.put(c.getName(), i);
+        }
+        this.index = Collections.unmodifiableMap(idx);
+    }
+
+    /**
+     * @param projection columns in select-list order, as returned by {@link TableMetadata#getProjection}
+     */
+    public static RecordRowMapper of(TableMetadata meta, List<ColumnMetaData> projection) {
+        List<String> key = projection.stream().map(ColumnMetaData::getName).toList();
+        return CACHE.computeIfAbsent(meta, m -> new ConcurrentHashMap<>())
+                .computeIfAbsent(key, k -> new RecordRowMapper(projection));
+    }
+
+    @Override
+    public Map<String, Object> mapRow(ResultSet rs, int rowNum) throws SQLException {
+        Object[] values = new Object[readers.length];
+        for (int i = 0; i < readers.length; i++) values[i] = readers[i].read(rs, i + 1);
+        return new Row(names, index, values);
+    }
+
+    @FunctionalInterface
+    private interface SlotReader {
+        Object read(ResultSet rs, int column) throws SQLException;
+    }
+
+    private static SlotReader readerFor(DomainType domain) {
+        if (domain == null) return ResultSet::getObject;
+        return switch (domain.getInternalName()) {
+            case "UUID" -> (rs, i) -> rs.getObject(i, UUID.class);
+            case "INTEGER", "AUTOINCREMENT" -> (rs, i) -> {
+                int v = rs.getInt(i);
+                return rs.wasNull() ? null : v;
+            };
+            case "FLOAT" -> (rs, i) -> {
+                double v = rs.getDouble(i);
+                return rs.wasNull() ? null : v;
+            };
+            case "BOOLEAN" -> (rs, i) -> {
+                boolean v = rs.getBoolean(i);
+                return rs.wasNull() ? null : v;
+            };
+            case "DATE" -> ResultSet::getDate;
+            case "DATETIME" -> ResultSet::getTimestamp;
+            case "TEXT", "PASSWORD" -> ResultSet::getString;
+            default -> ResultSet::getObject; // FORMULA: any SQL expression, of any type
+        };
+    }
+
+    /** Read-only map view over one row's slots. */
+    static final class Row extends AbstractMap<String, Object> {
+
+        private final String[] names;
+        private final Map<String, Integer> index;
+        private final Object[] values;
+
+        Row(String[] names, Map<String, Integer> index, Object[] values) {
+            this.names = names;
+            this.index = index;
+            this.values = values;
+        }
+
+        @Override
+        public Object get(Object key) {
+            Integer i = index.get(key);
+            return (i == null) ? null : values[i];
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return index.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new Iterator<>() {
+                        private int i;
+
+                        @Override
+                        public boolean hasNext() {
+                            return i < values.length;
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            if (i >= values.length) throw new NoSuchElementException();
+                            Entry<String, Object> e = new SimpleImmutableEntry<>(names[i], values[i]);
+                            i++;
+                            return e;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return values.length;
+                }
+            };
+        }
+    }
+}
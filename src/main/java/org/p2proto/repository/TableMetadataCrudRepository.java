@@ -2,19 +2,33 @@
 package org.p2proto.repository;
 
 import lombok.extern.slf4j.Slf4j;
+import org.p2proto.config.ReplicaRoutingDataSource;
 import org.p2proto.domain.DomainType;
 import org.p2proto.dto.ColumnDefaultHolder;
 import org.p2proto.dto.ColumnMetaData;
+import org.p2proto.dto.ImportResult;
+import org.p2proto.dto.RecordPage;
 import org.p2proto.dto.TableMetadata;
+import org.p2proto.repository.copy.CopyImporter;
+import org.p2proto.repository.copy.ExportFormat;
+import org.p2proto.repository.copy.RecordReader;
 import org.p2proto.sql.*;
-import org.springframework.dao.EmptyResultDataAccessException;
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Statement;
 import java.sql.Timestamp;
 import java.time.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import static org.p2proto.service.TableService.CURRENT_TIMESTAMP;
@@ -23,39 +37,149 @@ import static org.p2proto.service.TableService.CURRENT_TIMESTAMP;
 public class TableMetadataCrudRepository {
 
     public static final String PASSWORD_MASK = "********";
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int STREAM_FETCH_SIZE = 1000;
+    /** Rows per JDBC batch in {@link #insertAll} / {@link #updateAll}. */
+    public static final int BATCH_SIZE = 500;
+    /** Bind parameters per statement for multi-row statements; stays clear of the protocol limit of 65535. */
+    private static final int MAX_BIND_PARAMS = 32767;
+
+    /** Named parameter of the PK in by-PK statements; cannot clash with the {@code p1..pn} of {@link WhereRenderer}. */
+    private static final String PK_PARAM = "_pk";
 
     private final NamedParameterJdbcTemplate namedJdbc;
     private final TableMetadata meta;
 
+    // SQL fixed by the metadata, built once per repository (see CrudRepositoryRegistry)
+    private final String selectAllSql;
+    private final String selectByPkSql;
+    private final String deleteByPkSql;
+    /** Columns that can be written, in table order: everything but autoincrement and formula columns. */
+    private final ColumnMetaData[] writableColumns;
+    // INSERT / UPDATE-by-PK text per effective column set; rows only carry the columns they set
+    private final Map<List<String>, String> insertSql = new ConcurrentHashMap<>();
+    private final Map<List<String>, String> updateByPkSql = new ConcurrentHashMap<>();
+
     public TableMetadataCrudRepository(JdbcTemplate jdbcTemplate,
                                        TableMetadata tableMetadata) {
-        this.namedJdbc = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this(new NamedParameterJdbcTemplate(jdbcTemplate), tableMetadata);
+    }
+
+    public TableMetadataCrudRepository(NamedParameterJdbcTemplate namedJdbc,
+                                       TableMetadata tableMetadata) {
+        this.namedJdbc = Objects.requireNonNull(namedJdbc, "namedJdbc");
         this.meta = Objects.requireNonNull(tableMetadata, "tableMetadata");
+
+        String pkMatch = " WHERE " + meta.getPrimaryKeyMeta().getName() + " = :" + PK_PARAM + pkCast();
+        this.selectAllSql = meta.generateSelectStatement();
+        this.selectByPkSql = selectAllSql + pkMatch;
+        this.deleteByPkSql = "DELETE FROM " + meta.getTableName() + pkMatch;
+        this.writableColumns = meta.getColumns().stream()
+                .filter(c -> c.getDomain() == null || !(c.getDomain().isAutoIncrement() || c.getDomain().isVirtual()))
+                .toArray(ColumnMetaData[]::new);
+    }
+
+    public TableMetadata getMeta() {
+        return meta;
     }
 
     // ---------- READ ----------
 
+    // Plain reads may go to a replica, see ReplicaRoutingDataSource.read
+
     public List<Map<String, Object>> findAll() {
-        String sql = meta.generateSelectStatement();
-        return namedJdbc.getJdbcTemplate().queryForList(sql);
+        return ReplicaRoutingDataSource.read(() -> namedJdbc.getJdbcTemplate().query(selectAllSql, rowMapper(null)));
     }
 
     public Optional<Map<String, Object>> findById(Object pkValue) {
-        Criterion c = Condition.eq(meta.getPrimaryKeyMeta().getName(), pkValue);
-        WhereSql ws = new WhereRenderer(meta).render(c);
-        String sql = meta.generateSelectStatement() + " " + ws.sql();
-        try {
-            Map<String, Object> row = namedJdbc.queryForMap(sql, ws.params());
-            return Optional.of(row);
-        } catch (EmptyResultDataAccessException e) {
-            return Optional.empty();
-        }
+        if (pkValue == null) return Optional.empty();
+        List<Map<String, Object>> rows = ReplicaRoutingDataSource.read(
+                () -> namedJdbc.query(selectByPkSql, pkParams(pkValue), rowMapper(null)));
+        return rows.stream().findFirst();
     }
 
     public List<Map<String, Object>> findBy(Criterion criterion) {
         WhereSql ws = new WhereRenderer(meta).render(criterion);
-        String sql = meta.generateSelectStatement() + " " + ws.sql();
-        return namedJdbc.queryForList(sql, ws.params());
+        String sql = selectAllSql + " " + ws.sql();
+        return ReplicaRoutingDataSource.read(() -> namedJdbc.query(sql, ws.params(), rowMapper(null)));
+    }
+
+    /** Filtered read ordered by the given column (PK as tie-breaker); unordered when {@code sort} is null. */
+    public List<Map<String, Object>> findBy(Criterion criterion, Sort sort) {
+        return findBy(criterion, sort, null);
+    }
+
+    /**
+     * Filtered, ordered read of only the given fields (plus PK).
+     * {@code null} fields select every column, see {@link TableMetadata#getProjection}.
+     */
+    public List<Map<String, Object>> findBy(Criterion criterion, Sort sort, Collection<String> fields) {
+        WhereSql ws = new WhereRenderer(meta).render(criterion);
+        return ReplicaRoutingDataSource.read(
+                () -> namedJdbc.query(selectSql(ws, sort, fields), ws.params(), rowMapper(fields)));
+    }
+
+    // ---------- STREAMING ----------
+
+    /**
+     * Streams matching rows to {@code handler} through a server-side cursor, {@link #STREAM_FETCH_SIZE}
+     * rows per round trip, so memory stays flat for any result size. Must run inside a transaction:
+     * the PostgreSQL driver only uses a cursor when autocommit is off.
+     */
+    public void streamBy(Criterion criterion, Sort sort, Collection<String> fields, RowCallbackHandler handler) {
+        WhereSql ws = new WhereRenderer(meta).render(criterion);
+        // own template: the fetch size must not leak into the shared one
+        JdbcTemplate cursor = new JdbcTemplate(namedJdbc.getJdbcTemplate().getDataSource());
+        cursor.setFetchSize(STREAM_FETCH_SIZE);
+        new NamedParameterJdbcTemplate(cursor).query(selectSql(ws, sort, fields), ws.params(), handler);
+    }
+
+    // ---------- KEYSET PAGING ----------
+
+    /**
+     * Seek-based page read: {@code WHERE (sort, pk) > (:k1, :k2) ORDER BY sort, pk LIMIT n}.
+     * Unlike OFFSET, the cost of a page does not grow with its depth.
+     *
+     * @param criterion optional filter, ANDed with the seek predicate
+     * @param order     optional sort; {@code null} or the PK itself seeks on the PK only.
+     *                  The direction applies to the PK tie-breaker as well.
+     * @param fields    fields to read (PK and sort column are always added); {@code null} for every column
+     * @param after     cursor from a previous {@link RecordPage#nextCursor()}, {@code null} for the first page
+     * @param limit     page size, clamped to [1, {@link #MAX_PAGE_SIZE}]
+     */
+    public RecordPage findPage(Criterion criterion, Sort order, Collection<String> fields, String after, int limit) {
+        ColumnMetaData pk = meta.getPrimaryKeyMeta();
+        ColumnMetaData sort = (order == null) ? null : order.resolve(meta);
+        boolean descending = order != null && order.descending();
+        List<ColumnMetaData> keys = (sort == null) ? List.of(pk) : List.of(sort, pk);
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        Criterion seek = (after == null || after.isBlank())
+                ? null
+                : seekCriterion(keys, KeysetCursor.decode(after, keys), descending);
+
+        // the cursor is taken from the last row, so the sort column has to be read
+        Collection<String> projection = fields;
+        if (fields != null && !fields.isEmpty() && sort != null && !fields.contains(sort.getName())) {
+            projection = new ArrayList<>(fields);
+            projection.add(sort.getName());
+        }
+
+        WhereSql ws = new WhereRenderer(meta).render(and(criterion, seek));
+        String sql = meta.generateSelectStatement(projection) + " " + ws.sql()
+                + " ORDER BY " + orderBy(sort, descending) + " LIMIT " + (size + 1);
+
+        Collection<String> read = projection;
+        List<Map<String, Object>> rows = ReplicaRoutingDataSource.read(
+                () -> namedJdbc.query(sql, ws.params(), rowMapper(read)));
+        if (rows.size() <= size) return new RecordPage(rows, null);
+
+        List<Map<String, Object>> page = new ArrayList<>(rows.subList(0, size));
+        Map<String, Object> last = page.get(size - 1);
+        List<Object> lastKey = new ArrayList<>(keys.size());
+        for (ColumnMetaData k : keys) lastKey.add(last.get(k.getName()));
+        return new RecordPage(page, KeysetCursor.encode(lastKey));
     }
 
     // ---------- INSERT ----------
@@ -64,17 +188,76 @@ public class TableMetadataCrudRepository {
         Map<String, Object> filtered = prepareAndFilterRowData(rowData, true);
         if (filtered.isEmpty()) throw new IllegalArgumentException("No valid columns to insert.");
 
-        String cols = String.join(", ", filtered.keySet());
-        String params = filtered.keySet().stream().map(k -> ":" + k).collect(Collectors.joining(", "));
-        String sql = "INSERT INTO " + meta.getTableName() + " (" + cols + ") VALUES (" + params + ")";
+        String sql = insertSql.computeIfAbsent(List.copyOf(filtered.keySet()), this::buildInsert);
         return namedJdbc.update(sql, new MapSqlParameterSource(filtered));
     }
 
+    /**
+     * Batched INSERT. Rows are grouped by the columns they actually set (after defaults), and each
+     * group runs as one JDBC batch per {@link #BATCH_SIZE} rows; with {@code reWriteBatchedInserts}
+     * on the connection the driver sends those as multi-row INSERTs.
+     *
+     * @return number of inserted rows
+     */
+    public int insertAll(List<Map<String, Object>> rows) {
+        Map<List<String>, List<MapSqlParameterSource>> groups = new LinkedHashMap<>();
+        for (Map<String, Object> row : rows) {
+            Map<String, Object> filtered = prepareAndFilterRowData(row, true);
+            if (filtered.isEmpty()) throw new IllegalArgumentException("No valid columns to insert.");
+            groups.computeIfAbsent(List.copyOf(filtered.keySet()), k -> new ArrayList<>())
+                    .add(new MapSqlParameterSource(filtered));
+        }
+
+        int count = 0;
+        for (Map.Entry<List<String>, List<MapSqlParameterSource>> g : groups.entrySet()) {
+            String sql = insertSql.computeIfAbsent(g.getKey(), this::buildInsert);
+            count += batch(sql, g.getValue());
+        }
+        return count;
+    }
+
     // ---------- UPDATE ----------
 
     public int update(Object pkValue, Map<String, Object> rowData) {
-        // delegate to updateBy on PK criterion
-        return updateBy(Condition.eq(meta.getPrimaryKeyMeta().getName(), pkValue), rowData);
+        if (pkValue == null) return updateBy(Condition.eq(meta.getPrimaryKeyMeta().getName(), null), rowData);
+
+        Map<String, Object> filtered = prepareAndFilterRowData(rowData, false);
+        filtered.remove(meta.getPrimaryKeyMeta().getName()); // never update PK
+        if (filtered.isEmpty()) return 0;
+
+        String sql = updateByPkSql.computeIfAbsent(List.copyOf(filtered.keySet()), this::buildUpdateByPk);
+        MapSqlParameterSource ps = new MapSqlParameterSource(filtered);
+        ps.addValue(PK_PARAM, convertPk(pkValue));
+        return namedJdbc.update(sql, ps);
+    }
+
+    /**
+     * Batched UPDATE by PK, grouped by effective column set like {@link #insertAll}.
+     * Rows without any column left to update are skipped.
+     *
+     * @param rows values to set, keyed by PK value
+     * @return number of updated rows
+     */
+    public int updateAll(Map<?, Map<String, Object>> rows) {
+        String pkName = meta.getPrimaryKeyMeta().getName();
+        Map<List<String>, List<MapSqlParameterSource>> groups = new LinkedHashMap<>();
+        for (Map.Entry<?, Map<String, Object>> row : rows.entrySet()) {
+            if (row.getKey() == null) throw new IllegalArgumentException("Missing primary key value");
+            Map<String, Object> filtered = prepareAndFilterRowData(row.getValue(), false);
+            filtered.remove(pkName); // never update PK
+            if (filtered.isEmpty()) continue;
+
+            MapSqlParameterSource ps = new MapSqlParameterSource(filtered);
+            ps.addValue(PK_PARAM, convertPk(row.getKey()));
+            groups.computeIfAbsent(List.copyOf(filtered.keySet()), k -> new ArrayList<>()).add(ps);
+        }
+
+        int count = 0;
+        for (Map.Entry<List<String>, List<MapSqlParameterSource>> g : groups.entrySet()) {
+            String sql = updateByPkSql.computeIfAbsent(g.getKey(), this::buildUpdateByPk);
+            count += batch(sql, g.getValue());
+        }
+        return count;
     }
 
     /** Bulk/conditional UPDATE using criteria. Returns affected row count. */
@@ -101,7 +284,8 @@ public class TableMetadataCrudRepository {
     // ---------- DELETE ----------
 
     public int delete(Object pkValue) {
-        return deleteBy(Condition.eq(meta.getPrimaryKeyMeta().getName(), pkValue));
+        if (pkValue == null) return deleteBy(Condition.eq(meta.getPrimaryKeyMeta().getName(), null));
+        return namedJdbc.update(deleteByPkSql, pkParams(pkValue));
     }
 
     /** Bulk/conditional DELETE using criteria. */
@@ -111,6 +295,191 @@ public class TableMetadataCrudRepository {
         return namedJdbc.update(sql, ws.params());
     }
 
+    // ---------- UPSERT ----------
+
+    /** {@link #upsertAll(String, List)} keyed on the primary key. */
+    public int upsertAll(List<Map<String, Object>> rows) {
+        return upsertAll(null, rows);
+    }
+
+    /**
+     * Multi-row {@code INSERT ... ON CONFLICT (key) DO UPDATE SET ...}: new rows are inserted and
+     * existing ones updated without reading first. Rows are grouped by the columns they set and sent
+     * {@link #BATCH_SIZE} rows per statement.
+     * <p>
+     * Defaults keep their meaning in both branches: ON_CREATE defaults are only part of the inserted
+     * values, and a column left to its ON_CREATE default is not touched when the row already exists;
+     * ON_UPDATE defaults only apply to the update branch. A key repeated in {@code rows} keeps its
+     * last row, since one statement may not update the same row twice. Keyed on an autoincrement
+     * primary key, new rows keep the caller's ids and the sequence is then advanced past them.
+     *
+     * @param conflictColumn primary key when {@code null}, else a column declared unique
+     *                       (see {@link ColumnMetaData#hasUniqueConstraint()})
+     * @return number of inserted or updated rows
+     */
+    public int upsertAll(String conflictColumn, List<Map<String, Object>> rows) {
+        ColumnMetaData key = conflictColumn(conflictColumn);
+
+        Map<Object, UpsertRow> keyed = new LinkedHashMap<>();
+        List<UpsertRow> unkeyed = new ArrayList<>();
+        for (Map<String, Object> row : rows) {
+            UpsertRow r = upsertRow(row == null ? Map.of() : row, key);
+            Object k = r.values().get(key.getName());
+            if (k == null) unkeyed.add(r);
+            else keyed.put(k, r);
+        }
+
+        Map<List<List<String>>, List<UpsertRow>> groups = new LinkedHashMap<>();
+        for (UpsertRow r : keyed.values()) groups.computeIfAbsent(r.shape(), k -> new ArrayList<>()).add(r);
+        for (UpsertRow r : unkeyed) groups.computeIfAbsent(r.shape(), k -> new ArrayList<>()).add(r);
+
+        int count = 0;
+        for (Map.Entry<List<List<String>>, List<UpsertRow>> g : groups.entrySet()) {
+            List<String> cols = g.getKey().get(0);
+            List<String> set = g.getKey().get(1);
+            List<String> onUpdate = g.getKey().get(2);
+            List<UpsertRow> group = g.getValue();
+            int chunk = Math.max(1, Math.min(BATCH_SIZE, MAX_BIND_PARAMS / cols.size()));
+
+            for (int from = 0; from < group.size(); from += chunk) {
+                List<UpsertRow> part = group.subList(from, Math.min(from + chunk, group.size()));
+                MapSqlParameterSource ps = new MapSqlParameterSource();
+                for (int i = 0; i < part.size(); i++) {
+                    for (String c : cols) ps.addValue("r" + i + "_" + c, part.get(i).values().get(c));
+                }
+                for (String c : onUpdate) {
+                    ps.addValue("u_" + c, getDefaultValue(meta.getColumnsByName().get(c), false));
+                }
+                count += namedJdbc.update(buildUpsert(key.getName(), cols, set, part.size()), ps);
+            }
+        }
+        ColumnMetaData pk = meta.getPrimaryKeyMeta();
+        if (key == pk && pk.getDomain().isAutoIncrement() && !keyed.isEmpty()) {
+            advanceSequence(pk);
+        }
+        return count;
+    }
+
+    /**
+     * Moves the PK sequence past the largest id, since upserts keyed on an autoincrement PK insert
+     * new rows with the caller's ids and the sequence would otherwise hand them out again.
+     * Never moves the sequence backwards.
+     */
+    private void advanceSequence(ColumnMetaData pk) {
+        String sql = "SELECT setval(s.seq, m.max_id) "
+                + "FROM (SELECT pg_get_serial_sequence(:table, :pk) AS seq) s, "
+                + "(SELECT max(" + pk.getName() + ") AS max_id FROM " + meta.getTableName() + ") m "
+                + "WHERE m.max_id > COALESCE(pg_sequence_last_value(s.seq::regclass), 0)";
+        namedJdbc.queryForList(sql, new MapSqlParameterSource()
+                .addValue("table", meta.getTableName())
+                .addValue("pk", pk.getName()));
+    }
+
+    // ---------- BULK IMPORT ----------
+
+    /** The row as {@link #insert} would write it: converted, defaulted, writable columns only. */
+    public Map<String, Object> toInsertValues(Map<String, Object> rowData) {
+        return prepareAndFilterRowData(rowData, true);
+    }
+
+    /**
+     * Streams records into the table through {@code COPY ... FROM STDIN}, see {@link CopyImporter}.
+     * Runs on the connection of the current transaction.
+     */
+    public ImportResult copyFrom(RecordReader reader, long maxErrors) {
+        return namedJdbc.getJdbcTemplate().execute((ConnectionCallback<ImportResult>) con -> {
+            try {
+                return new CopyImporter(this, maxErrors).run(con.unwrap(PGConnection.class).getCopyAPI(), reader);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    // ---------- EXPORT ----------
+
+    /**
+     * Writes the selected rows to {@code out} via {@code COPY (SELECT ...) TO STDOUT}; the driver
+     * copies the server's bytes straight into the stream, no row objects are built. COPY takes no
+     * bind parameters, so the filter values are inlined as literals (see {@link SqlLiterals}).
+     *
+     * @param fields fields to export (plus PK); {@code null} for every column
+     * @return number of rows written
+     */
+    public long copyTo(Criterion criterion, Collection<String> fields, ExportFormat format, OutputStream out) {
+        String sql = copySql(criterion, fields, format, true, false);
+        return namedJdbc.getJdbcTemplate().execute((ConnectionCallback<Long>) con -> {
+            try {
+                return con.unwrap(PGConnection.class).getCopyAPI().copyOut(sql, out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /** The COPY statement {@link #copyTo} runs; {@code orderByPk} sorts the rows by primary key. */
+    public String copySql(Criterion criterion, Collection<String> fields, ExportFormat format,
+                          boolean header, boolean orderByPk) {
+        String where = SqlLiterals.inline(new WhereRenderer(meta).render(criterion));
+        String select = (fields == null || fields.isEmpty()) ? selectAllSql : meta.generateSelectStatement(fields);
+        String query = where.isEmpty() ? select : select + " " + where;
+        if (orderByPk) query += " ORDER BY " + meta.getPrimaryKeyMeta().getName();
+        return format.copySql(query, header);
+    }
+
+    /** Whether {@link #primaryKeySlices} can split this table. */
+    public boolean supportsSlicing() {
+        return switch (meta.getPrimaryKeyMeta().getDomain().getInternalName()) {
+            case "INTEGER", "AUTOINCREMENT", "UUID" -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Splits the table into at most {@code n} contiguous primary-key ranges, in ascending key order,
+     * for reading it in slices. Integer keys are split between their current min and max, UUID keys
+     * over the whole key space. The first and last range are open-ended, so together they cover
+     * every key; a {@code null} entry stands for the whole table.
+     *
+     * @throws IllegalArgumentException for other key types
+     */
+    public List<Criterion> primaryKeySlices(int n) {
+        ColumnMetaData pk = meta.getPrimaryKeyMeta();
+        if (!supportsSlicing()) {
+            throw new IllegalArgumentException("Slicing needs an integer or UUID primary key, "
+                    + meta.getTableName() + " has " + pk.getDomain().getInternalName());
+        }
+        List<Object> bounds = new ArrayList<>();
+        switch (pk.getDomain().getInternalName()) {
+            case "INTEGER", "AUTOINCREMENT" -> {
+                Map<String, Object> range = namedJdbc.getJdbcTemplate().queryForMap(
+                        "SELECT min(" + pk.getName() + ") AS lo, max(" + pk.getName() + ") AS hi FROM " + meta.getTableName());
+                if (range.get("lo") == null) break;
+                long lo = ((Number) range.get("lo")).longValue();
+                long width = ((Number) range.get("hi")).longValue() - lo + 1;
+                int slices = (int) Math.min(n, width);
+                long step = width / slices;
+                for (int i = 1; i < slices; i++) bounds.add(lo + step * i);
+            }
+            case "UUID" -> {
+                long step = Long.divideUnsigned(-1L, n);
+                for (int i = 1; i < n; i++) bounds.add(new UUID(step * i, 0L));
+            }
+            default -> throw new IllegalStateException();
+        }
+
+        List<Criterion> slices = new ArrayList<>(bounds.size() + 1);
+        for (int i = 0; i <= bounds.size(); i++) {
+            Object from = (i == 0) ? null : bounds.get(i - 1);
+            Object to = (i == bounds.size()) ? null : bounds.get(i);
+            if (from == null && to == null) slices.add(null);
+            else if (from == null) slices.add(Condition.lt(pk.getName(), to));
+            else if (to == null) slices.add(Condition.ge(pk.getName(), from));
+            else slices.add(Group.and(Condition.ge(pk.getName(), from), Condition.lt(pk.getName(), to)));
+        }
+        return slices;
+    }
+
     // ---------- UPSERT-ish convenience ----------
 
     public int save(Object pkValue, Map<String, Object> recordData) {
@@ -121,21 +490,24 @@ public class TableMetadataCrudRepository {
     // ---------- Internals ----------
 
     private Map<String, Object> prepareAndFilterRowData(Map<String, Object> rowData, boolean insert) {
-        Map<String, Object> src = (rowData == null) ? new HashMap<>() : new HashMap<>(rowData);
+        Map<String, Object> src = (rowData == null) ? Map.of() : rowData;
 
-        // defaults
         Map<String, Object> out = new LinkedHashMap<>();
-        for (ColumnMetaData c : meta.getColumns()) {
+        for (ColumnMetaData c : writableColumns) {
             String name = c.getName();
             DomainType domain = c.getDomain();
-            if (domain != null && (domain.isAutoIncrement() || domain.isVirtual())) continue;
-            if (isBlank(src.get(name)) && c.getDefaultValue() != null) {
+            Object val = src.get(name);
+            boolean present = val != null || src.containsKey(name);
+
+            // defaults
+            if (isBlank(val) && c.getDefaultValue() != null) {
                 Object def = getDefaultValue(c, insert);
-                if (def != null) src.put(c.getName(), def);
+                if (def != null) {
+                    val = def;
+                    present = true;
+                }
             }
-            if (!src.containsKey(name)) continue;
-
-            Object val = src.get(name);
+            if (!present) continue;
 
             if ("PASSWORD".equalsIgnoreCase(domain.getInternalName()) && PASSWORD_MASK.equals(val)) {
                 continue;
@@ -148,6 +520,165 @@ public class TableMetadataCrudRepository {
         return out;
     }
 
+    /**
+     * Inserted values of one upsert row plus its shape: inserted columns, SET items and the
+     * columns whose SET value is their ON_UPDATE default.
+     */
+    private record UpsertRow(Map<String, Object> values, List<List<String>> shape) {}
+
+    private UpsertRow upsertRow(Map<String, Object> row, ColumnMetaData key) {
+        ColumnMetaData pk = meta.getPrimaryKeyMeta();
+        Map<String, Object> values = prepareAndFilterRowData(row, true);
+        // an autoincrement PK is never written, except to name the row an upsert on it targets
+        Object pkValue = row.get(pk.getName());
+        if (key == pk && pk.getDomain().isAutoIncrement() && !isBlank(pkValue)) {
+            values.put(pk.getName(), pkValue instanceof String str ? FilterParser.value(pk.getDomain(), str) : pkValue);
+        }
+        if (values.isEmpty()) throw new IllegalArgumentException("No valid columns to insert.");
+
+        List<String> set = new ArrayList<>();
+        List<String> onUpdate = new ArrayList<>();
+        for (ColumnMetaData c : writableColumns) {
+            String name = c.getName();
+            if (name.equals(key.getName()) || name.equals(pk.getName())) continue;
+            ColumnDefaultHolder def = c.getDefaultValue();
+            ColumnDefaultHolder.TriggerEvent trigger = (def == null) ? null : def.getTriggerEvent();
+            boolean blank = isBlank(row.get(name));
+
+            if (blank && trigger == ColumnDefaultHolder.TriggerEvent.ON_UPDATE) {
+                set.add(name + " = :u_" + name);
+                onUpdate.add(name);
+            } else if (blank && trigger == ColumnDefaultHolder.TriggerEvent.ON_CREATE) {
+                // keep the value the row got when it was created
+            } else if (values.containsKey(name)) {
+                set.add(name + " = EXCLUDED." + name);
+            }
+        }
+        return new UpsertRow(values, List.of(List.copyOf(values.keySet()), List.copyOf(set), List.copyOf(onUpdate)));
+    }
+
+    private ColumnMetaData conflictColumn(String name) {
+        ColumnMetaData pk = meta.getPrimaryKeyMeta();
+        if (name == null || name.isBlank() || name.equals(pk.getName())) return pk;
+        ColumnMetaData c = meta.getColumnsByName().get(name);
+        if (c == null) throw new IllegalArgumentException("Unknown column: " + name);
+        if (!c.hasUniqueConstraint()) throw new IllegalArgumentException("Column is not unique: " + name);
+        return c;
+    }
+
+    private String buildUpsert(String key, List<String> cols, List<String> set, int rows) {
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(meta.getTableName())
+                .append(" (").append(String.join(", ", cols)).append(") VALUES ");
+        for (int i = 0; i < rows; i++) {
+            sql.append(i == 0 ? "(" : ", (");
+            for (int j = 0; j < cols.size(); j++) {
+                if (j > 0) sql.append(", ");
+                sql.append(":r").append(i).append('_').append(cols.get(j));
+            }
+            sql.append(')');
+        }
+        sql.append(" ON CONFLICT (").append(key).append(") DO ");
+        sql.append(set.isEmpty() ? "NOTHING" : "UPDATE SET " + String.join(", ", set));
+        return sql.toString();
+    }
+
+    /** Runs {@code sql} once per parameter set, {@link #BATCH_SIZE} sets per batch; returns affected rows. */
+    private int batch(String sql, List<MapSqlParameterSource> params) {
+        int count = 0;
+        for (int from = 0; from < params.size(); from += BATCH_SIZE) {
+            List<MapSqlParameterSource> chunk = params.subList(from, Math.min(from + BATCH_SIZE, params.size()));
+            for (int n : namedJdbc.batchUpdate(sql, chunk.toArray(new SqlParameterSource[0]))) {
+                // rewritten multi-row inserts report SUCCESS_NO_INFO per row
+                count += (n == Statement.SUCCESS_NO_INFO) ? 1 : n;
+            }
+        }
+        return count;
+    }
+
+    private String buildInsert(List<String> columns) {
+        StringJoiner cols = new StringJoiner(", ");
+        StringJoiner params = new StringJoiner(", ");
+        for (String c : columns) {
+            cols.add(c);
+            params.add(":" + c);
+        }
+        return "INSERT INTO " + meta.getTableName() + " (" + cols + ") VALUES (" + params + ")";
+    }
+
+    private String buildUpdateByPk(List<String> columns) {
+        StringJoiner set = new StringJoiner(", ");
+        for (String c : columns) set.add(c + " = :" + c);
+        return "UPDATE " + meta.getTableName() + " SET " + set
+                + " WHERE " + meta.getPrimaryKeyMeta().getName() + " = :" + PK_PARAM + pkCast();
+    }
+
+    private String pkCast() {
+        DomainType d = meta.getPrimaryKeyMeta().getDomain();
+        return (d != null && "UUID".equalsIgnoreCase(d.getInternalName())) ? "::uuid" : "";
+    }
+
+    private MapSqlParameterSource pkParams(Object pkValue) {
+        return new MapSqlParameterSource(PK_PARAM, convertPk(pkValue));
+    }
+
+    /** Same conversion {@link WhereRenderer} applies to PK equality. */
+    private Object convertPk(Object pkValue) {
+        DomainType d = meta.getPrimaryKeyMeta().getDomain();
+        if (d != null && "UUID".equalsIgnoreCase(d.getInternalName()) && !(pkValue instanceof UUID)) {
+            return UUID.fromString(pkValue.toString());
+        }
+        return pkValue;
+    }
+
+    /** Mapper matching the select list of {@code generateSelectStatement(fields)}. */
+    private RecordRowMapper rowMapper(Collection<String> fields) {
+        return RecordRowMapper.of(meta, meta.getProjection(fields));
+    }
+
+    private String selectSql(WhereSql ws, Sort sort, Collection<String> fields) {
+        String select = (fields == null || fields.isEmpty()) ? selectAllSql : meta.generateSelectStatement(fields);
+        String sql = select + " " + ws.sql();
+        if (sort != null) {
+            sql += " ORDER BY " + orderBy(sort.resolve(meta), sort.descending());
+        }
+        return sql;
+    }
+
+    /** NULL sort values go last in both directions; {@link #seekCriterion} relies on that. */
+    private String orderBy(ColumnMetaData sort, boolean descending) {
+        String dir = descending ? " DESC" : " ASC";
+        String pk = meta.getPrimaryKeyMeta().getName() + dir;
+        return (sort == null) ? pk : sort.getName() + dir + " NULLS LAST, " + pk;
+    }
+
+    /**
+     * Seek predicate past the given key. With a sort column the NULL tail (ordered last)
+     * is walked by PK alone once the cursor has entered it.
+     */
+    private static Criterion seekCriterion(List<ColumnMetaData> keys, List<Object> values, boolean descending) {
+        String cmp = descending ? " < " : " > ";
+        String pk = keys.get(keys.size() - 1).getName();
+        Object pkValue = values.get(values.size() - 1);
+        if (pkValue == null) throw new IllegalArgumentException("Cursor has no primary key value");
+
+        if (keys.size() == 1) {
+            return new Raw(pk + cmp + ":k1", Map.of("k1", pkValue));
+        }
+        String sort = keys.get(0).getName();
+        Object sortValue = values.get(0);
+        if (sortValue == null) {
+            return new Raw(sort + " IS NULL AND " + pk + cmp + ":k2", Map.of("k2", pkValue));
+        }
+        return new Raw("(" + sort + ", " + pk + ")" + cmp + "(:k1, :k2) OR " + sort + " IS NULL",
+                Map.of("k1", sortValue, "k2", pkValue));
+    }
+
+    private static Criterion and(Criterion a, Criterion b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return Group.and(a, b);
+    }
+
     private static boolean isBlank(Object v) {
         return v == null || (v instanceof String s && s.isBlank());
     }
@@ -3,13 +3,17 @@ package org.p2proto.repository.component;
 import org.p2proto.model.component.ComponentHistory;
 import org.p2proto.model.component.ComponentHistory.ComponentHistoryStatus;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -74,6 +78,47 @@ public class ComponentHistoryRepository {
         );
     }
 
+    /**
+     * CREATE (batch): Insert all records in one JDBC batch; returns the generated ids in list order.
+     */
+    public List<Long> saveAll(List<ComponentHistory> entries) {
+        String sql = """
+            INSERT INTO component_history
+                   (component_id, parent_id, status, user_id, timestamp,
+                    ddl_statement, old_state, new_state)
+            VALUES (?, ?, ?::component_history_status_enum, ?, ?,
+                    ?, ?::jsonb, ?::jsonb)
+        """;
+        if (entries.isEmpty()) return List.of();
+
+        return jdbcTemplate.execute((ConnectionCallback<List<Long>>) con -> {
+            try (PreparedStatement ps = con.prepareStatement(sql, new String[] {"id"})) {
+                Timestamp now = new Timestamp(System.currentTimeMillis());
+                for (ComponentHistory ch : entries) {
+                    ps.setObject(1, ch.getComponentId());
+                    ps.setObject(2, ch.getParentId(), Types.BIGINT);
+                    ps.setString(3, ch.getStatus().name());
+                    ps.setObject(4, ch.getUserId(), Types.INTEGER);
+                    ps.setTimestamp(5, ch.getTimestamp() != null ? ch.getTimestamp() : now);
+                    ps.setString(6, ch.getDdlStatement());
+                    ps.setString(7, ch.getOldState() != null ? ch.getOldState() : "{}");
+                    ps.setString(8, ch.getNewState() != null ? ch.getNewState() : "{}");
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                List<Long> ids = new ArrayList<>(entries.size());
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    while (keys.next()) ids.add(keys.getLong(1));
+                }
+                if (ids.size() != entries.size()) {
+                    throw new SQLException("Expected " + entries.size() + " generated ids, got " + ids.size());
+                }
+                return ids;
+            }
+        });
+    }
+
     /**
      * READ ALL: Retrieve all rows from the `component_history` table.
      */
@@ -82,6 +127,21 @@ public class ComponentHistoryRepository {
         return jdbcTemplate.query(sql, rowMapper);
     }
 
+    /**
+     * IN_PROGRESS entries of TABLE components still LOCKED (create-table jobs), started before {@code before}.
+     */
+    public List<ComponentHistory> findInProgressTableJobs(Timestamp before) {
+        String sql = """
+            SELECT h.* FROM component_history h
+              JOIN components c ON c.id = h.component_id
+             WHERE h.status = 'IN_PROGRESS'
+               AND c.component_type = 'TABLE'
+               AND c.status = 'LOCKED'
+               AND h.timestamp < ?
+        """;
+        return jdbcTemplate.query(sql, rowMapper, before);
+    }
+
     /**
      * READ BY ID: Find a record by its BIGINT (primary key).
      */
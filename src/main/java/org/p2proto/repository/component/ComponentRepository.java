@@ -2,12 +2,16 @@ package org.p2proto.repository.component;
 
 import org.p2proto.model.component.Component;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -72,6 +76,44 @@ public class ComponentRepository {
         return newId;
     }
 
+    /**
+     * CREATE (batch): Insert all components in one JDBC batch.
+     * The generated ids come back through RETURNING, one per row in list order,
+     * and are set into the Component objects.
+     */
+    public List<UUID> saveAll(List<Component> components) {
+        String sql = """
+        INSERT INTO components (component_type, status, created_by)
+        VALUES (?::component_type_enum, ?::component_status_enum, ?)
+    """;
+        if (components.isEmpty()) return List.of();
+
+        return jdbcTemplate.execute((ConnectionCallback<List<UUID>>) con -> {
+            try (PreparedStatement ps = con.prepareStatement(sql, new String[] {"id"})) {
+                for (Component c : components) {
+                    ps.setString(1, c.getComponentType().name());
+                    ps.setString(2, c.getStatus().name());
+                    ps.setObject(3, c.getCreatedBy(), Types.INTEGER);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                List<UUID> ids = new ArrayList<>(components.size());
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        UUID id = keys.getObject(1, UUID.class);
+                        components.get(ids.size()).setId(id);
+                        ids.add(id);
+                    }
+                }
+                if (ids.size() != components.size()) {
+                    throw new SQLException("Expected " + components.size() + " generated ids, got " + ids.size());
+                }
+                return ids;
+            }
+        });
+    }
+
     /**
      * READ ALL: Retrieve all rows from the `components` table.
      */
@@ -0,0 +1,157 @@
+package org.p2proto.repository.copy;
+
+import lombok.extern.slf4j.Slf4j;
+import org.p2proto.domain.DomainType;
+import org.p2proto.dto.ImportResult;
+import org.p2proto.dto.TableMetadata;
+import org.p2proto.repository.TableMetadataCrudRepository;
+import org.p2proto.sql.FilterParser;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.DateTimeException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bulk insert through {@code COPY ... FROM STDIN (FORMAT csv)}.
+ * <p>
+ * Each record is converted exactly like a single insert (see
+ * {@link TableMetadataCrudRepository#toInsertValues}): domain conversion including password
+ * hashing, ON_CREATE defaults, formula and autoincrement columns left out. The column list is
+ * fixed by the first record that converts; a later record converting to a different set of
+ * columns is rejected, since COPY would write NULL where an insert would apply the column's
+ * database default (an explicit null is fine).
+ * <p>
+ * Rows are buffered up to {@link #BUFFER_CHARS} before being handed to the driver, so memory
+ * stays flat for any input size. Records that cannot be converted are skipped and reported by
+ * line; once more than {@code maxErrors} were skipped the import is aborted.
+ */
+@Slf4j
+public class CopyImporter {
+
+    public static final int BUFFER_CHARS = 64 * 1024;
+    public static final int MAX_REPORTED_ERRORS = 100;
+    public static final long PROGRESS_INTERVAL = 100_000;
+
+    private final TableMetadataCrudRepository repo;
+    private final long maxErrors;
+
+    public CopyImporter(TableMetadataCrudRepository repo, long maxErrors) {
+        this.repo = repo;
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * @throws IllegalArgumentException when more than {@code maxErrors} records were rejected
+     */
+    public ImportResult run(CopyManager copy, RecordReader reader) throws SQLException, IOException {
+        TableMetadata meta = repo.getMeta();
+        List<ImportResult.RowError> errors = new ArrayList<>();
+        long rejected = 0;
+        long rows = 0;
+
+        String[] columns = null;
+        Set<String> columnSet = null;
+        DomainType[] domains = null;
+        StringBuilder buf = new StringBuilder(BUFFER_CHARS + 1024);
+        CopyIn in = null;
+        try {
+            while (true) {
+                int mark = buf.length();
+                try {
+                    Map<String, Object> record = reader.next();
+                    if (record == null) break;
+                    for (String name : record.keySet()) {
+                        if (!meta.getColumnsByName().containsKey(name)) {
+                            throw new IllegalArgumentException("Unknown column: " + name);
+                        }
+                    }
+                    Map<String, Object> values = repo.toInsertValues(record);
+
+                    if (columns == null) {
+                        if (values.isEmpty()) throw new IllegalArgumentException("No valid columns to insert.");
+                        columns = values.keySet().toArray(String[]::new);
+                        columnSet = Set.of(columns);
+                        domains = new DomainType[columns.length];
+                        for (int i = 0; i < columns.length; i++) {
+                            domains[i] = meta.getColumnsByName().get(columns[i]).getDomain();
+                        }
+                        in = copy.copyIn("COPY " + meta.getTableName() + " (" + String.join(", ", columns)
+                                + ") FROM STDIN (FORMAT csv)");
+                    } else if (!columnSet.equals(values.keySet())) {
+                        for (String name : values.keySet()) {
+                            if (!columnSet.contains(name)) {
+                                throw new IllegalArgumentException("Column not in the import: " + name);
+                            }
+                        }
+                        for (String name : columns) {
+                            if (!values.containsKey(name)) {
+                                throw new IllegalArgumentException("Missing column: " + name);
+                            }
+                        }
+                    }
+                    appendRow(buf, columns, domains, values);
+                } catch (IllegalArgumentException | UnsupportedOperationException | DateTimeException e) {
+                    buf.setLength(mark);
+                    rejected++;
+                    if (errors.size() < MAX_REPORTED_ERRORS) {
+                        errors.add(new ImportResult.RowError(reader.line(), e.getMessage()));
+                    }
+                    if (rejected > maxErrors) {
+                        throw new IllegalArgumentException("Import aborted after " + rejected
+                                + " invalid records; first at line " + errors.get(0).line() + ": " + errors.get(0).message());
+                    }
+                    continue;
+                }
+
+                if (++rows % PROGRESS_INTERVAL == 0) {
+                    log.info("Import into {}: {} rows, {} rejected", meta.getTableName(), rows, rejected);
+                }
+                if (buf.length() >= BUFFER_CHARS) flush(in, buf);
+            }
+
+            if (in == null) return new ImportResult(0, rejected, errors);
+            flush(in, buf);
+            long imported = in.endCopy();
+            log.info("Imported {} rows into {}, {} rejected", imported, meta.getTableName(), rejected);
+            return new ImportResult(imported, rejected, errors);
+        } finally {
+            if (in != null && in.isActive()) in.cancelCopy();
+        }
+    }
+
+    /** One CSV line; NULL is an empty unquoted field, any value is quoted. */
+    private static void appendRow(StringBuilder buf, String[] columns, DomainType[] domains, Map<String, Object> values) {
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) buf.append(',');
+            Object v = values.get(columns[i]);
+            if (v == null) continue;
+            // numbers are checked here so a bad value rejects the record instead of failing the COPY
+            String s = (v instanceof String str && isNumeric(domains[i]))
+                    ? String.valueOf(FilterParser.value(domains[i], str.trim()))
+                    : v.toString();
+            buf.append('"').append(s.replace("\"", "\"\"")).append('"');
+        }
+        buf.append('\n');
+    }
+
+    private static boolean isNumeric(DomainType d) {
+        return switch (d.getInternalName()) {
+            case "INTEGER", "AUTOINCREMENT", "FLOAT" -> true;
+            default -> false;
+        };
+    }
+
+    private static void flush(CopyIn in, StringBuilder buf) throws SQLException {
+        if (buf.length() == 0) return;
+        byte[] bytes = buf.toString().getBytes(StandardCharsets.UTF_8);
+        in.writeToCopy(bytes, 0, bytes.length);
+        buf.setLength(0);
+    }
+}
@@ -0,0 +1,93 @@
+package org.p2proto.repository.copy;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.*;
+
+/**
+ * RFC 4180 CSV: a header row with the field names, then one record per row. Fields may be quoted,
+ * with {@code ""} for a literal quote and line breaks allowed inside quotes. Empty lines are skipped.
+ */
+public class CsvRecordReader implements RecordReader {
+
+    private final BufferedReader in;
+    private String[] header;
+    private long nextLine = 1;
+    private long recordLine;
+
+    public CsvRecordReader(Reader in) {
+        this.in = (in instanceof BufferedReader b) ? b : new BufferedReader(in);
+    }
+
+    @Override
+    public Map<String, Object> next() throws IOException {
+        if (header == null) {
+            List<String> names = readRecord();
+            if (names == null) return null;
+            header = names.stream().map(String::trim).toArray(String[]::new);
+        }
+        List<String> fields = readRecord();
+        if (fields == null) return null;
+        if (fields.size() != header.length) {
+            throw new IllegalArgumentException("Expected " + header.length + " fields, got " + fields.size());
+        }
+        Map<String, Object> record = new LinkedHashMap<>(header.length * 2);
+        for (int i = 0; i < header.length; i++) record.put(header[i], fields.get(i));
+        return record;
+    }
+
+    @Override
+    public long line() {
+        return recordLine;
+    }
+
+    /** @return the fields of the next non-empty row, or {@code null} at the end of the input */
+    private List<String> readRecord() throws IOException {
+        while (true) {
+            int c = in.read();
+            if (c == -1) return null;
+            recordLine = nextLine;
+
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c == -1) {
+                        throw new IllegalArgumentException("Unterminated quoted field starting on line " + recordLine);
+                    }
+                    if (c == '"') {
+                        int n = in.read();
+                        if (n != '"') {
+                            quoted = false;
+                            c = n;
+                            continue;
+                        }
+                    } else if (c == '\n') {
+                        nextLine++;
+                    }
+                    field.append((char) c);
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c == -1) {
+                    nextLine++;
+                    fields.add(field.toString());
+                    break;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+                c = in.read();
+            }
+            if (fields.size() > 1 || !fields.get(0).isEmpty()) return fields;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,64 @@
+package org.p2proto.repository.copy;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Output formats of {@code COPY ... TO STDOUT} exports.
+ */
+public enum ExportFormat {
+
+    /** CSV with a header row. */
+    CSV("text/csv", "csv"),
+
+    /** One JSON object per row and line. */
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /** @throws IllegalArgumentException for an unknown format */
+    public static ExportFormat parse(String raw) {
+        if (raw == null || raw.isBlank()) return CSV;
+        try {
+            return valueOf(raw.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown export format: " + raw);
+        }
+    }
+
+    /**
+     * COPY statement writing the rows of {@code query} to STDOUT in this format.
+     *
+     * @param header whether CSV output starts with a header row
+     */
+    public String copySql(String query, boolean header) {
+        return switch (this) {
+            case CSV -> "COPY (" + query + ") TO STDOUT (FORMAT csv" + (header ? ", HEADER" : "") + ")";
+            // row_to_json text never contains \x01 or \x02 (JSON escapes control characters),
+            // so with those as quote and delimiter CSV mode writes each document unchanged;
+            // text mode would double every backslash
+            case NDJSON -> "COPY (SELECT row_to_json(r) FROM (" + query + ") r) TO STDOUT "
+                    + "(FORMAT csv, QUOTE E'\\x01', DELIMITER E'\\x02')";
+        };
+    }
+
+    /** What {@code HEADER} would write for these columns; empty for NDJSON. */
+    public byte[] header(List<String> columns) {
+        if (this != CSV) return new byte[0];
+        return (String.join(",", columns) + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,53 @@
+package org.p2proto.repository.copy;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Map;
+
+/**
+ * Newline-delimited JSON: one JSON object per line. Blank lines are skipped.
+ */
+public class NdjsonRecordReader implements RecordReader {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final BufferedReader in;
+    private long lineNo;
+
+    public NdjsonRecordReader(Reader in) {
+        this.in = (in instanceof BufferedReader b) ? b : new BufferedReader(in);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> next() throws IOException {
+        String line;
+        do {
+            line = in.readLine();
+            if (line == null) return null;
+            lineNo++;
+        } while (line.isBlank());
+
+        try {
+            Object value = JSON.readValue(line, Object.class);
+            if (value instanceof Map<?, ?> map) return (Map<String, Object>) map;
+            throw new IllegalArgumentException("Expected a JSON object");
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    @Override
+    public long line() {
+        return lineNo;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,272 @@
+package org.p2proto.repository.copy;
+
+import com.zaxxer.hikari.HikariConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.p2proto.config.ReplicaRoutingDataSource;
+import org.p2proto.dto.ColumnMetaData;
+import org.p2proto.repository.TableMetadataCrudRepository;
+import org.p2proto.sql.Criterion;
+import org.p2proto.sql.Group;
+import org.p2proto.sql.SqlLiterals;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyOut;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Export split into primary-key slices (see {@link TableMetadataCrudRepository#primaryKeySlices}),
+ * each read by its own {@code COPY ... TO STDOUT} on its own connection from a bounded pool, so
+ * a large export uses several backends instead of one.
+ * <p>
+ * All slices read the same snapshot: the caller's transaction exports it with
+ * {@code pg_export_snapshot()} and every slice transaction adopts it, as {@code pg_dump -j} does.
+ * The caller must therefore run in a REPEATABLE READ transaction that stays open for the export.
+ * <p>
+ * Slices hand row-aligned chunks to the caller's thread through bounded queues, which writes them
+ * to the output: in slice order (rows ordered by PK) or as they arrive (unordered, faster).
+ * <p>
+ * Slice connections come from the application pool, so all exports together may hold at most
+ * half of it; an export that would exceed that is refused up front ({@link #admit}, before the
+ * caller has written anything) rather than queueing for connections that normal requests need.
+ */
+@Slf4j
+@Component
+public class ParallelExporter implements DisposableBean {
+
+    public static final int MAX_SLICES = 32;
+    private static final int CHUNK_BYTES = 64 * 1024;
+    private static final int QUEUED_CHUNKS_PER_SLICE = 4;
+    private static final int MAX_QUEUED_SLICES = 256;
+
+    /** A chunk of rows, a slice's end ({@code data == null}) or its failure. */
+    private record Chunk(byte[] data, RuntimeException error) {
+        static final Chunk END = new Chunk(null, null);
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ExecutorService executor;
+    /** Slice connections still available to exports, see {@link #sliceConnectionLimit}. */
+    private final Semaphore sliceConnections;
+    private final int sliceConnectionLimit;
+
+    public ParallelExporter(JdbcTemplate jdbcTemplate, @Qualifier("hikariConfig") HikariConfig pool) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sliceConnectionLimit = sliceConnectionLimit(pool.getMaximumPoolSize());
+        this.sliceConnections = new Semaphore(sliceConnectionLimit);
+        int threads = Math.min(sliceConnectionLimit, Math.max(2, Runtime.getRuntime().availableProcessors()));
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(MAX_QUEUED_SLICES),
+                r -> {
+                    Thread t = new Thread(r, "export-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    /**
+     * Slice connections held for one export from {@link #admit} until {@link #export} hands them to
+     * its slices. {@link #close()} gives back whatever an export did not take over.
+     */
+    public final class Admission implements AutoCloseable {
+        private final int slices;
+        private final AtomicInteger held;
+
+        private Admission(int slices) {
+            this.slices = slices;
+            this.held = new AtomicInteger(slices);
+        }
+
+        public int getSlices() {
+            return slices;
+        }
+
+        /** Hands {@code count} permits to the caller and gives back the rest. */
+        private void take(int count) {
+            int left = held.getAndSet(0);
+            if (left < count) throw new IllegalStateException("Admission already used");
+            if (left > count) sliceConnections.release(left - count);
+        }
+
+        @Override
+        public void close() {
+            int left = held.getAndSet(0);
+            if (left > 0) sliceConnections.release(left);
+        }
+    }
+
+    /** Half the pool, at least one: the rest stays for requests, including the exports' own coordinators. */
+    static int sliceConnectionLimit(int poolSize) {
+        return Math.max(1, poolSize / 2);
+    }
+
+    /**
+     * Reserves the connections of one export; call before writing anything to the client.
+     *
+     * @param slices number of slices, clamped to [1, {@link #MAX_SLICES}] and to the slice connection limit
+     * @throws RejectedExecutionException when running exports already hold too many connections
+     */
+    public Admission admit(int slices) {
+        int n = Math.max(1, Math.min(slices, Math.min(MAX_SLICES, sliceConnectionLimit)));
+        if (!sliceConnections.tryAcquire(n)) {
+            throw new RejectedExecutionException("Too many parallel exports running, try again later or with fewer slices");
+        }
+        return new Admission(n);
+    }
+
+    /**
+     * @param admission connections reserved by {@link #admit}; the caller still closes it
+     * @param ordered   write slices one after the other so rows come out in PK order
+     * @return number of rows written
+     */
+    public long export(Admission admission, TableMetadataCrudRepository repo, Criterion criterion,
+                       Collection<String> fields, ExportFormat format, boolean ordered, OutputStream out)
+            throws IOException {
+        List<Criterion> ranges = repo.primaryKeySlices(admission.getSlices());
+        admission.take(ranges.size());
+        // each slice gives its permit back when it ends, or here if it never started
+        List<AtomicBoolean> claimed = new ArrayList<>(ranges.size());
+        for (int i = 0; i < ranges.size(); i++) claimed.add(new AtomicBoolean());
+
+        String snapshot;
+        Object target;
+        try {
+            snapshot = jdbcTemplate.queryForObject("SELECT pg_export_snapshot()", String.class);
+            // the snapshot only exists on the server that exported it (primary or a replica)
+            target = ReplicaRoutingDataSource.lastKey();
+        } catch (RuntimeException e) {
+            sliceConnections.release(ranges.size());
+            throw e;
+        }
+        List<String> columns = repo.getMeta().getProjection(fields).stream()
+                .map(ColumnMetaData::getName)
+                .collect(Collectors.toList());
+
+        List<BlockingQueue<Chunk>> queues = new ArrayList<>();
+        BlockingQueue<Chunk> shared = new ArrayBlockingQueue<>(QUEUED_CHUNKS_PER_SLICE * ranges.size());
+        AtomicLong rows = new AtomicLong();
+        List<Future<?>> running = new ArrayList<>(ranges.size());
+        try {
+            for (int i = 0; i < ranges.size(); i++) {
+                Criterion range = ranges.get(i);
+                AtomicBoolean permit = claimed.get(i);
+                Criterion where = (range == null) ? criterion
+                        : (criterion == null) ? range : Group.and(criterion, range);
+                String sql = repo.copySql(where, fields, format, false, ordered);
+                BlockingQueue<Chunk> queue = ordered ? new ArrayBlockingQueue<>(QUEUED_CHUNKS_PER_SLICE) : shared;
+                queues.add(queue);
+                running.add(executor.submit(() -> {
+                    if (!permit.compareAndSet(false, true)) return; // export already given up
+                    try {
+                        readSlice(sql, snapshot, target, queue, rows);
+                    } finally {
+                        sliceConnections.release();
+                    }
+                }));
+            }
+
+            out.write(format.header(columns));
+            if (ordered) {
+                for (BlockingQueue<Chunk> queue : queues) drain(queue, 1, out);
+            } else {
+                drain(shared, ranges.size(), out);
+            }
+            log.info("Exported {} rows of {} in {} slices", rows.get(), repo.getMeta().getTableName(), ranges.size());
+            return rows.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Export interrupted", e);
+        } finally {
+            // no-op when all slices finished; otherwise stops the ones still reading or blocked on a full queue
+            running.forEach(f -> f.cancel(true));
+            for (AtomicBoolean permit : claimed) {
+                if (permit.compareAndSet(false, true)) sliceConnections.release();
+            }
+        }
+    }
+
+    private static void drain(BlockingQueue<Chunk> queue, int producers, OutputStream out)
+            throws IOException, InterruptedException {
+        int ended = 0;
+        while (ended < producers) {
+            Chunk chunk = queue.take();
+            if (chunk.error() != null) throw chunk.error();
+            if (chunk.data() == null) ended++;
+            else out.write(chunk.data());
+        }
+    }
+
+    /** Runs on a pool thread: one COPY in a read-only transaction on the exported snapshot. */
+    private void readSlice(String sql, String snapshot, Object target, BlockingQueue<Chunk> queue, AtomicLong rows) {
+        try {
+            ReplicaRoutingDataSource.pinned(target, () -> jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+                boolean autoCommit = con.getAutoCommit();
+                con.setAutoCommit(false);
+                try (Statement st = con.createStatement()) {
+                    st.execute("SET TRANSACTION ISOLATION LEVEL REPEATABLE READ, READ ONLY");
+                    st.execute("SET TRANSACTION SNAPSHOT " + SqlLiterals.literal(snapshot));
+
+                    CopyOut copy = con.unwrap(PGConnection.class).getCopyAPI().copyOut(sql);
+                    try {
+                        ByteArrayOutputStream chunk = new ByteArrayOutputStream(CHUNK_BYTES + 8 * 1024);
+                        byte[] row;
+                        while ((row = copy.readFromCopy()) != null) {
+                            chunk.write(row, 0, row.length);
+                            rows.incrementAndGet();
+                            if (chunk.size() >= CHUNK_BYTES) {
+                                put(queue, new Chunk(chunk.toByteArray(), null));
+                                chunk.reset();
+                            }
+                        }
+                        if (chunk.size() > 0) put(queue, new Chunk(chunk.toByteArray(), null));
+                    } finally {
+                        if (copy.isActive()) copy.cancelCopy();
+                    }
+                } finally {
+                    con.rollback();
+                    con.setAutoCommit(autoCommit);
+                }
+                return null;
+            }));
+            put(queue, Chunk.END);
+        } catch (CancellationException e) {
+            // export abandoned by the caller
+        } catch (RuntimeException e) {
+            try {
+                put(queue, new Chunk(null, e));
+            } catch (CancellationException ignored) {
+                // caller is gone as well
+            }
+        }
+    }
+
+    private static void put(BlockingQueue<Chunk> queue, Chunk chunk) {
+        try {
+            queue.put(chunk);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Export cancelled");
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,20 @@
+package org.p2proto.repository.copy;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Sequential source of input records (field name to raw value) for a bulk import.
+ */
+public interface RecordReader extends Closeable {
+
+    /**
+     * @return the next record, or {@code null} at the end of the input
+     * @throws IllegalArgumentException for a malformed record; reading can go on with the next one
+     */
+    Map<String, Object> next() throws IOException;
+
+    /** Input line (1-based) the record last returned by {@link #next()} starts on. */
+    long line();
+}
@@ -0,0 +1,148 @@
+package org.p2proto.repository.table;
+
+import com.zaxxer.hikari.HikariConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Carries metadata changes between nodes over PostgreSQL {@code LISTEN/NOTIFY}, so each node can
+ * keep its local {@code tables} cache without a cluster transport.
+ * <p>
+ * {@link TableRepository} sends {@link #NOTIFY_SQL} inside the writing transaction; PostgreSQL
+ * delivers it only once that transaction commits. Every node holds one connection listening on
+ * {@link #CHANNEL} and turns a change from another node into a local
+ * {@link TableMetadataChangedEvent}, which evicts the table as a local write would. Payloads are
+ * {@code tableId:version:node}, the version being the writing transaction's id. Evicting is
+ * idempotent, so delivery order does not matter.
+ * <p>
+ * Notifications sent while the listening connection is down are lost; after reconnecting, the
+ * whole cache is dropped instead. The listening connection is held for the node's lifetime, so it
+ * is opened outside the pool, where it would take a slot and trip leak detection.
+ */
+@Slf4j
+@Component
+public class MetadataChangeChannel implements InitializingBean, DisposableBean {
+
+    public static final String CHANNEL = "p2proto_metadata";
+
+    /** Identifies this JVM in payloads, so a node skips its own changes. */
+    static final String NODE_ID = UUID.randomUUID().toString();
+
+    /** Params: table id, node id. */
+    static final String NOTIFY_SQL =
+            "SELECT pg_notify('" + CHANNEL + "', ? || ':' || txid_current() || ':' || ?)";
+
+    private static final int POLL_MILLIS = 10_000;
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+    /** A decoded payload. */
+    record Change(UUID tableId, long version, String node) {
+
+        static Change parse(String payload) {
+            String[] parts = payload.split(":", 3);
+            if (parts.length != 3) throw new IllegalArgumentException("Malformed metadata change: " + payload);
+            return new Change(UUID.fromString(parts[0]), Long.parseLong(parts[1]), parts[2]);
+        }
+    }
+
+    private final DataSource dataSource;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheManager cacheManager;
+    private final TableCatalog tableCatalog;
+    private final Thread listener;
+    private volatile boolean running = true;
+
+    public MetadataChangeChannel(@Qualifier("hikariConfig") HikariConfig pool, ApplicationEventPublisher eventPublisher,
+                                 CacheManager cacheManager, TableCatalog tableCatalog) {
+        DriverManagerDataSource unpooled = new DriverManagerDataSource(pool.getJdbcUrl(), pool.getUsername(), pool.getPassword());
+        unpooled.setDriverClassName(pool.getDriverClassName());
+        this.dataSource = unpooled;
+        this.eventPublisher = eventPublisher;
+        this.cacheManager = cacheManager;
+        this.tableCatalog = tableCatalog;
+        this.listener = new Thread(this::listen, "metadata-listener");
+        this.listener.setDaemon(true);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        listener.start();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        listener.interrupt();
+        listener.join(POLL_MILLIS);
+    }
+
+    private void listen() {
+        long backoff = 1_000;
+        boolean reconnect = false;
+        while (running) {
+            try (Connection conn = dataSource.getConnection()) {
+                conn.setAutoCommit(true);
+                try (Statement st = conn.createStatement()) {
+                    st.execute("LISTEN " + CHANNEL);
+                }
+                log.info("Listening for metadata changes on channel {}", CHANNEL);
+                if (reconnect) evictAll();
+                backoff = 1_000;
+                PGConnection pg = conn.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(POLL_MILLIS);
+                    if (notifications == null) continue;
+                    for (PGNotification n : notifications) onNotification(n.getParameter());
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) break;
+                log.warn("Metadata change listener lost its connection, retrying in {} ms", backoff, e);
+                reconnect = true;
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    break;
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+            }
+        }
+    }
+
+    void onNotification(String payload) {
+        Change change;
+        try {
+            change = Change.parse(payload);
+        } catch (IllegalArgumentException e) {
+            log.warn(e.getMessage());
+            return;
+        }
+        if (NODE_ID.equals(change.node())) return; // evicted locally on commit already
+        log.debug("Metadata of table {} changed on another node (version {})", change.tableId(), change.version());
+        eventPublisher.publishEvent(new TableMetadataChangedEvent(change.tableId()));
+    }
+
+    private void evictAll() {
+        for (String name : List.of(TableRepository.CACHE_NAME, TableRepository.SUMMARY_CACHE_NAME)) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) cache.clear();
+        }
+        tableCatalog.invalidateAll();
+        log.info("Dropped cached metadata after reconnecting, changes may have been missed");
+    }
+}
@@ -0,0 +1,39 @@
+package org.p2proto.repository.table;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Evicts the cache entries a metadata write makes stale: the table's own entry in {@code tables},
+ * and the logical-name map and sorted summary list in {@code tableSummaries}. Other tables stay cached.
+ * <p>
+ * Runs after the writing transaction commits (immediately when there is none), so a reader
+ * that misses right after the eviction loads committed state and can never cache a write that
+ * is later rolled back. A reader that loaded before the commit and stores after the eviction
+ * is kept out by the caches themselves ({@link org.p2proto.config.VersionedCache}).
+ */
+@Slf4j
+@Component
+public class TableCacheEvictor {
+
+    private final CacheManager cacheManager;
+
+    public TableCacheEvictor(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMetadataChanged(TableMetadataChangedEvent event) {
+        Cache cache = cacheManager.getCache(TableRepository.CACHE_NAME);
+        if (cache != null) cache.evict(event.tableId());
+        Cache summaries = cacheManager.getCache(TableRepository.SUMMARY_CACHE_NAME);
+        if (summaries != null) {
+            summaries.evict(TableRepository.LOGICAL_NAME_TO_ID_KEY);
+            summaries.evict(TableRepository.ALL_TABLES_KEY);
+        }
+        log.debug("Evicted metadata of table {}", event.tableId());
+    }
+}
@@ -0,0 +1,224 @@
+package org.p2proto.repository.table;
+
+import lombok.extern.slf4j.Slf4j;
+import org.p2proto.dto.TableMetadata;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Logical table name → {@link TableMetadata}, for the per-request lookups of the record endpoints.
+ * <p>
+ * Readers see an immutable snapshot through an {@link AtomicReference}: one lock-free hash lookup,
+ * no cache proxy and no name → id → metadata double hop. Writers never modify a snapshot; they copy
+ * it, apply their change and publish the copy, so concurrent readers keep a consistent view.
+ * <p>
+ * The snapshot starts with the whole catalog (one query) and is kept current entry by entry:
+ * a name that is missing is loaded from the database on its own, and a committed
+ * {@link TableMetadataChangedEvent} drops the table so its next lookup reloads it.
+ * Drops are numbered and recorded per table; a single-table load only publishes its result if that
+ * table was not dropped while it ran, and a full load leaves out the tables dropped while it ran,
+ * so a load racing a metadata change cannot put the old state back. Changes to other tables do
+ * not affect it.
+ * <p>
+ * Loads are single-flight: concurrent misses on one name wait for the same in-flight load instead
+ * of each querying. With {@value #STALE_WHILE_REVALIDATE_PROPERTY} set, a dropped table keeps
+ * being served in its previous state while one background load fetches the new one.
+ */
+@Slf4j
+@Component
+public class TableCatalog implements DisposableBean {
+
+    public static final String STALE_WHILE_REVALIDATE_PROPERTY = "p2proto.metadata.staleWhileRevalidate";
+
+    private final TableRepository tableRepository;
+    /** {@code null} until the first lookup or {@link #publishAll}. */
+    private final AtomicReference<Map<String, TableMetadata>> snapshot = new AtomicReference<>();
+    private final AtomicLong drops = new AtomicLong();
+    /** Number of the last drop of each table. */
+    private final Map<UUID, Long> droppedAt = new ConcurrentHashMap<>();
+    /** Number of the last {@link #invalidateAll}. */
+    private volatile long allDroppedAt;
+    private final Map<String, CompletableFuture<TableMetadata>> inFlight = new ConcurrentHashMap<>();
+    /** Dropped tables still served while they reload; only used with stale-while-revalidate. */
+    private final Map<String, TableMetadata> stale = new ConcurrentHashMap<>();
+    private final boolean staleWhileRevalidate;
+    private final ExecutorService refresher;
+
+    @Autowired
+    public TableCatalog(TableRepository tableRepository) {
+        this(tableRepository, Boolean.getBoolean(STALE_WHILE_REVALIDATE_PROPERTY));
+    }
+
+    TableCatalog(TableRepository tableRepository, boolean staleWhileRevalidate) {
+        this.tableRepository = tableRepository;
+        this.staleWhileRevalidate = staleWhileRevalidate;
+        this.refresher = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "metadata-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * @param tableName logical table name
+     * @return the table's metadata, or {@code null} if there is no such table
+     */
+    public TableMetadata findByName(String tableName) {
+        TableMetadata table = current().get(tableName);
+        if (table != null) return table;
+
+        TableMetadata previous = stale.get(tableName);
+        if (previous != null) {
+            if (!inFlight.containsKey(tableName)) refresher.execute(() -> load(tableName));
+            return previous;
+        }
+        try {
+            return load(tableName).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+    }
+
+    /** Mark to take before a full catalog load, for {@link #publishAll}. */
+    public long loadMark() {
+        return drops.get();
+    }
+
+    /**
+     * Replaces the snapshot with a full catalog load that started at {@code mark}. Tables dropped
+     * since are left out (their next lookup loads them on their own); nothing is published if the
+     * whole catalog was dropped since.
+     *
+     * @return whether the snapshot was replaced
+     */
+    public boolean publishAll(Collection<TableMetadata> tables, long mark) {
+        if (allDroppedAt > mark) return false;
+        Map<String, TableMetadata> next = new HashMap<>(tables.size() * 2);
+        for (TableMetadata t : tables) {
+            if (!droppedSince(t.getId(), mark)) next.put(t.getTableName(), t);
+        }
+        Map<String, TableMetadata> published = Map.copyOf(next);
+        snapshot.set(published);
+        // a drop between the checks above and the set found no snapshot (or the old one) to drop from
+        if (allDroppedAt > mark) {
+            snapshot.compareAndSet(published, null);
+            return false;
+        }
+        update(m -> m.values().removeIf(t -> droppedSince(t.getId(), mark)));
+        return true;
+    }
+
+    /** Drops the table from the snapshot; the next lookup by name reloads it. */
+    public void invalidate(UUID tableId) {
+        droppedAt.merge(tableId, drops.incrementAndGet(), Math::max);
+        update(m -> m.values().removeIf(t -> {
+            if (!tableId.equals(t.getId())) return false;
+            if (staleWhileRevalidate) stale.put(t.getTableName(), t);
+            return true;
+        }));
+    }
+
+    /** Drops the whole snapshot; the next lookup reloads the catalog. */
+    public void invalidateAll() {
+        allDroppedAt = drops.incrementAndGet();
+        snapshot.set(null);
+        stale.clear();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMetadataChanged(TableMetadataChangedEvent event) {
+        invalidate(event.tableId());
+    }
+
+    @Override
+    public void destroy() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * Loads one table, or joins the load of it already running.
+     * Completes with {@code null} if there is no such table.
+     */
+    private CompletableFuture<TableMetadata> load(String tableName) {
+        CompletableFuture<TableMetadata> future = new CompletableFuture<>();
+        CompletableFuture<TableMetadata> running = inFlight.putIfAbsent(tableName, future);
+        if (running != null) return running;
+
+        long start = drops.get();
+        try {
+            TableMetadata table = tableRepository.findByLogicalName(tableName);
+            if (table != null) {
+                update(m -> {
+                    if (!droppedSince(table.getId(), start)) put(m, table);
+                });
+            }
+            TableMetadata previous = stale.get(tableName);
+            UUID id = (table != null) ? table.getId() : (previous != null) ? previous.getId() : null;
+            if (!droppedSince(id, start)) stale.remove(tableName);
+            future.complete(table);
+        } catch (RuntimeException e) {
+            if (stale.containsKey(tableName)) log.warn("Refreshing metadata of table {} failed, serving the previous state", tableName, e);
+            future.completeExceptionally(e);
+        } finally {
+            inFlight.remove(tableName, future);
+        }
+        return future;
+    }
+
+    /** Whether the table was dropped after drop number {@code start}. */
+    private boolean droppedSince(UUID tableId, long start) {
+        if (allDroppedAt > start) return true;
+        return tableId != null && droppedAt.getOrDefault(tableId, 0L) > start;
+    }
+
+    /** The load of the name currently running, if any. */
+    CompletableFuture<TableMetadata> runningLoad(String tableName) {
+        return inFlight.get(tableName);
+    }
+
+    private Map<String, TableMetadata> current() {
+        Map<String, TableMetadata> m = snapshot.get();
+        if (m != null) return m;
+        synchronized (snapshot) {
+            m = snapshot.get();
+            if (m != null) return m; // loaded by a concurrent first lookup
+            long start = System.nanoTime();
+            Collection<TableMetadata> all;
+            do {
+                long mark = loadMark();
+                all = tableRepository.findAllMetadata().values();
+                if (publishAll(all, mark)) break;
+            } while (true); // the whole catalog was dropped while it loaded
+            log.debug("Loaded table catalog: {} tables in {} ms", all.size(), (System.nanoTime() - start) / 1_000_000);
+            m = snapshot.get();
+            return (m != null) ? m : Map.of();
+        }
+    }
+
+    private void update(Consumer<Map<String, TableMetadata>> change) {
+        snapshot.updateAndGet(m -> {
+            if (m == null) return null; // nothing loaded yet, the first lookup reads everything
+            Map<String, TableMetadata> next = new HashMap<>(m);
+            change.accept(next);
+            return Map.copyOf(next);
+        });
+    }
+
+    /** Puts the table under its name, dropping an older entry of the same table (renamed). */
+    private static void put(Map<String, TableMetadata> m, TableMetadata table) {
+        m.values().removeIf(t -> table.getId() != null && table.getId().equals(t.getId()));
+        m.put(table.getTableName(), table);
+    }
+}
@@ -0,0 +1,11 @@
+package org.p2proto.repository.table;
+
+import java.util.UUID;
+
+/**
+ * Published by {@link TableRepository} after it wrote metadata of a table, so holders of
+ * anything derived from the previous {@link org.p2proto.dto.TableMetadata} can drop it.
+ *
+ * @param tableId the table whose metadata changed
+ */
+public record TableMetadataChangedEvent(UUID tableId) {}
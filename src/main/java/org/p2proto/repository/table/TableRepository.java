@@ -12,6 +12,8 @@ import org.p2proto.dto.TableSummary;
 import org.postgresql.util.PGobject;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 
@@ -24,21 +26,45 @@ public class TableRepository {
 
     public static final String DEFAULT_LANGUAGE = "en";
 
+    /** Cache holding table metadata by table id, see {@link TableCacheEvictor}. */
+    public static final String CACHE_NAME = "tables";
+    /** Cache holding the table listings: {@link #LOGICAL_NAME_TO_ID_KEY}, {@link #ALL_TABLES_KEY}. */
+    public static final String SUMMARY_CACHE_NAME = "tableSummaries";
+    public static final String LOGICAL_NAME_TO_ID_KEY = "logicalNameToId";
+    public static final String ALL_TABLES_KEY = "allTablesOrderedByPluralLabel";
+
     private static final ObjectMapper OM = new ObjectMapper();
 
-    /** Table core info. */
-    public static final String TABLE_QUERY =
-            "SELECT t.id AS table_id, t.logical_name, t.type " +
+    /**
+     * Table row, table labels and all fields in one statement: one row per field (a table without
+     * fields still yields one row, with NULL field columns). Fields have no position column, so
+     * creation time and then physical order reproduce the order they were inserted in.
+     */
+    private static final String METADATA_SELECT =
+            "SELECT t.id AS table_id, t.logical_name, t.type, " +
+                    "       tc.nls_labels #>> ARRAY[?,'LABEL']        AS table_label, " +
+                    "       tc.nls_labels #>> ARRAY[?,'PLURAL_LABEL'] AS table_plural_label, " +
+                    "       f.id AS field_id, f.name AS field_name, f.data_type, " +
+                    "       f.primary_key, f.removable, f.auto_generated, " +
+                    "       f.default_value, f.properties, " +
+                    "       (fc.nls_labels #>> ARRAY[?,'LABEL']) AS label_text " +
                     "  FROM tables t " +
-                    " WHERE t.id = ?::uuid";
+                    "  LEFT JOIN components tc ON tc.id = t.id " +
+                    "  LEFT JOIN (fields f JOIN components fc ON fc.id = f.id) ON f.table_id = t.id ";
+
+    private static final String METADATA_ORDER = " ORDER BY t.id, fc.created_at, f.ctid";
+
+    /** Complete metadata of one table (include primary_key + auto_generated!). */
+    public static final String TABLE_METADATA_QUERY =
+            METADATA_SELECT + " WHERE t.id = ?::uuid" + METADATA_ORDER;
+
+    /** Complete metadata of one table, by logical name. */
+    public static final String TABLE_METADATA_BY_NAME_QUERY =
+            METADATA_SELECT + " WHERE t.logical_name = ?" + METADATA_ORDER;
 
-    /** Single table labels (from components.nls_labels). */
-    public static final String SINGLE_TABLE_LABELS_QUERY =
-            "SELECT " +
-                    "  c.nls_labels #>> ARRAY[?,'LABEL']        AS table_label, " +
-                    "  c.nls_labels #>> ARRAY[?,'PLURAL_LABEL'] AS table_plural_label " +
-                    "  FROM components c " +
-                    " WHERE c.id = ?::uuid";
+    /** Complete metadata of every table. */
+    public static final String ALL_TABLES_METADATA_QUERY =
+            METADATA_SELECT + METADATA_ORDER;
 
     /** All tables with labels in one pass. */
     public static final String ALL_TABLES_WITH_LABELS_QUERY =
@@ -64,8 +90,11 @@ public class TableRepository {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /** logical_name -> table UUID */
-    @Cacheable(cacheNames = "tables", key = "'logicalNameToId'")
+    @Cacheable(cacheNames = "tableSummaries", key = "'logicalNameToId'", sync = true)
     public Map<String, UUID> findAll() {
         return jdbcTemplate.query(ALL_TABLES_QUERY, rs -> {
             Map<String, UUID> map = new HashMap<>();
@@ -81,7 +110,7 @@ public class TableRepository {
     /**
      * Loads table list with labels (DEFAULT_LANGUAGE), sorted by plural label.
      */
-    @Cacheable(cacheNames = "tables", key = "'allTablesOrderedByPluralLabel'")
+    @Cacheable(cacheNames = "tableSummaries", key = "'allTablesOrderedByPluralLabel'", sync = true)
     public List<TableSummary> findAllWithLabels() {
         List<Map<String, Object>> rows =
                 jdbcTemplate.queryForList(ALL_TABLES_WITH_LABELS_QUERY, DEFAULT_LANGUAGE, DEFAULT_LANGUAGE);
@@ -114,62 +143,67 @@ public class TableRepository {
         return results;
     }
 
-    @Cacheable(cacheNames = "tables", key = "#tableId")
+    /**
+     * Cached per table id. {@code sync} makes concurrent misses on one id wait for a single load
+     * (run as a JCache entry processor on the cache entry) instead of each querying.
+     */
+    @Cacheable(cacheNames = "tables", key = "#tableId", sync = true)
     public TableMetadata findByID(UUID tableId) {
-        // 1) table info
-        Map<String, Object> tableRow = jdbcTemplate.queryForMap(TABLE_QUERY, tableId);
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                TABLE_METADATA_QUERY, DEFAULT_LANGUAGE, DEFAULT_LANGUAGE, DEFAULT_LANGUAGE, tableId);
+        if (rows.isEmpty()) throw new EmptyResultDataAccessException(1);
+        return toTableMetadata(rows);
+    }
+
+    /**
+     * Metadata of one table by logical name, straight from the database (not cached).
+     *
+     * @return the metadata, or {@code null} if there is no such table
+     */
+    public TableMetadata findByLogicalName(String logicalName) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                TABLE_METADATA_BY_NAME_QUERY, DEFAULT_LANGUAGE, DEFAULT_LANGUAGE, DEFAULT_LANGUAGE, logicalName);
+        return rows.isEmpty() ? null : toTableMetadata(rows);
+    }
+
+    /**
+     * Metadata of every table in one query, e.g. to fill the {@code tables} cache.
+     * Not cached itself.
+     */
+    public Map<UUID, TableMetadata> findAllMetadata() {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                ALL_TABLES_METADATA_QUERY, DEFAULT_LANGUAGE, DEFAULT_LANGUAGE, DEFAULT_LANGUAGE);
+
+        // rows come ordered by table, so each table's rows are contiguous
+        Map<UUID, TableMetadata> result = new LinkedHashMap<>();
+        int from = 0;
+        for (int i = 1; i <= rows.size(); i++) {
+            if (i == rows.size() || !rows.get(i).get("table_id").equals(rows.get(from).get("table_id"))) {
+                TableMetadata table = toTableMetadata(rows.subList(from, i));
+                result.put(table.getId(), table);
+                from = i;
+            }
+        }
+        return result;
+    }
+
+    /** Builds one table from its rows of {@link #TABLE_METADATA_QUERY}. */
+    private static TableMetadata toTableMetadata(List<Map<String, Object>> rows) {
+        // 1) table info and labels, repeated on every row
+        Map<String, Object> tableRow = rows.get(0);
+        UUID tableId = (UUID) tableRow.get("table_id");
         String logicalName = (String) tableRow.get("logical_name");
         TableSummary.TableTypeEnum tableType =
                 TableSummary.TableTypeEnum.valueOf(String.valueOf(tableRow.get("type")));
-
-        // 2) labels
-        Map<String, Object> labelRow =
-                jdbcTemplate.queryForMap(SINGLE_TABLE_LABELS_QUERY, DEFAULT_LANGUAGE, DEFAULT_LANGUAGE, tableId);
-        String tableLabel = Optional.ofNullable((String) labelRow.get("table_label")).orElse(logicalName);
-        String tablePluralLabel = Optional.ofNullable((String) labelRow.get("table_plural_label"))
+        String tableLabel = Optional.ofNullable((String) tableRow.get("table_label")).orElse(logicalName);
+        String tablePluralLabel = Optional.ofNullable((String) tableRow.get("table_plural_label"))
                 .orElse(tableLabel + "s");
 
-        // 3) fields
-        List<Map<String, Object>> fieldRows =
-                jdbcTemplate.queryForList(FIELDS_QUERY, DEFAULT_LANGUAGE, tableId);
-
-        List<ColumnMetaData> columns = fieldRows.stream().map(row -> {
-            UUID fieldId = (UUID) row.get("field_id");
-            String fieldName = (String) row.get("field_name");
-            String fieldLabel = (String) row.get("label_text");
-
-            int rawDataType = (int) row.get("data_type");
-            DomainType domain = DomainFactory.fromCode(rawDataType);
-
-            Boolean primaryKey = getBoolean(row.get("primary_key"));
-            Boolean removable  = getBoolean(row.get("removable"));
-            // auto_generated exists, but your Domain already encodes this;
-            // if you need it elsewhere, read: Boolean autoGen = getBoolean(row.get("auto_generated"));
-
-            ColumnDefaultHolder defaultValue = null;
-            try {
-                PGobject pg = (PGobject) row.get("default_value");
-                if (pg != null && pg.getValue() != null) {
-                    defaultValue = ColumnDefaultHolder.fromJson(pg.getValue());
-                }
-            } catch (JsonProcessingException e) {
-                log.error("Failed to parse default_value for field {}: {}", fieldName, e.getMessage());
-            }
-
-            Map<String, String> props = parseProperties(row.get("properties"));
-
-            // Use the constructor that sets default decorators:
-            return new ColumnMetaData(
-                    fieldId,
-                    fieldName,
-                    (fieldLabel != null ? fieldLabel : fieldName),
-                    domain,
-                    (primaryKey != null ? primaryKey : Boolean.FALSE),
-                    (removable  != null ? removable  : Boolean.FALSE),
-                    defaultValue,
-                    props
-            );
-        }).collect(Collectors.toUnmodifiableList());
+        // 2) fields
+        List<ColumnMetaData> columns = rows.stream()
+                .filter(row -> row.get("field_id") != null)
+                .map(TableRepository::toColumnMetaData)
+                .collect(Collectors.toUnmodifiableList());
 
         // Determine PK meta from the loaded columns
         ColumnMetaData pkMeta = columns.stream()
@@ -188,9 +222,59 @@ public class TableRepository {
                 .build();
     }
 
+    private static ColumnMetaData toColumnMetaData(Map<String, Object> row) {
+        UUID fieldId = (UUID) row.get("field_id");
+        String fieldName = (String) row.get("field_name");
+        String fieldLabel = (String) row.get("label_text");
+
+        int rawDataType = (int) row.get("data_type");
+        DomainType domain = DomainFactory.fromCode(rawDataType);
+
+        Boolean primaryKey = getBoolean(row.get("primary_key"));
+        Boolean removable  = getBoolean(row.get("removable"));
+        // auto_generated exists, but your Domain already encodes this;
+        // if you need it elsewhere, read: Boolean autoGen = getBoolean(row.get("auto_generated"));
+
+        ColumnDefaultHolder defaultValue = null;
+        try {
+            PGobject pg = (PGobject) row.get("default_value");
+            if (pg != null && pg.getValue() != null) {
+                defaultValue = ColumnDefaultHolder.fromJson(pg.getValue());
+            }
+        } catch (JsonProcessingException e) {
+            log.error("Failed to parse default_value for field {}: {}", fieldName, e.getMessage());
+        }
+
+        Map<String, String> props = parseProperties(row.get("properties"));
+
+        // Use the constructor that sets default decorators:
+        return new ColumnMetaData(
+                fieldId,
+                fieldName,
+                (fieldLabel != null ? fieldLabel : fieldName),
+                domain,
+                (primaryKey != null ? primaryKey : Boolean.FALSE),
+                (removable  != null ? removable  : Boolean.FALSE),
+                defaultValue,
+                props
+        );
+    }
+
+    private static final String INSERT_FIELD_SQL =
+            "INSERT INTO fields " +
+                    " (id, table_id, name, data_type, removable, primary_key, auto_generated, default_value, properties) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?::jsonb, ?::jsonb)";
+
+    private static final String UPSERT_FIELD_LABEL_SQL =
+            "UPDATE components SET nls_labels = " +
+                    "  jsonb_set( COALESCE(nls_labels,'{}'::jsonb), ARRAY[?,'LABEL'], to_jsonb(?::text), true) " +
+                    "WHERE id = ?::uuid";
+
     /**
      * Insert table row (components row is assumed to already exist with the same id),
-     * and set labels (DEFAULT_LANGUAGE).
+     * and set labels (DEFAULT_LANGUAGE). Fields and their labels go out as two JDBC batches.
+     * Cached metadata is evicted on every node once the surrounding transaction commits,
+     * see {@link #publishChange}.
      */
     public void createMetadataInDb(TableMetadata table) {
         String tableSql =
@@ -206,14 +290,52 @@ public class TableRepository {
 
         upsertTableLabels(table);
 
+        List<Object[]> fieldRows = new ArrayList<>(table.getColumns().size());
+        List<Object[]> labelRows = new ArrayList<>(table.getColumns().size());
         for (ColumnMetaData column : table.getColumns()) {
-            createColumnMetadataInDb(column, table.getId());
+            fieldRows.add(fieldRow(column, table.getId()));
+            labelRows.add(new Object[]{DEFAULT_LANGUAGE, column.getLabel(), column.getId()});
         }
+        jdbcTemplate.batchUpdate(INSERT_FIELD_SQL, fieldRows);
+        jdbcTemplate.batchUpdate(UPSERT_FIELD_LABEL_SQL, labelRows);
+
+        publishChange(table.getId());
     }
 
-    /** Update table labels only (DEFAULT_LANGUAGE). */
+    /**
+     * Update table labels only (DEFAULT_LANGUAGE).
+     * Like {@link #createMetadataInDb}, the cached metadata is evicted once the transaction commits.
+     */
     public void updateMetadataInDb(TableMetadata table) {
         upsertTableLabels(table);
+        publishChange(table.getId());
+    }
+
+    /**
+     * Insert the field row of a column added to an existing table.
+     * Like {@link #createMetadataInDb}, the cached metadata is evicted once the transaction commits.
+     */
+    public void addColumnMetadataInDb(UUID tableId, ColumnMetaData column) {
+        createColumnMetadataInDb(column, tableId);
+        publishChange(tableId);
+    }
+
+    /**
+     * Delete the field row of a dropped column. Its component is kept for the history.
+     * Like {@link #createMetadataInDb}, the cached metadata is evicted once the transaction commits.
+     */
+    public void deleteColumnMetadataInDb(UUID tableId, UUID columnId) {
+        jdbcTemplate.update("DELETE FROM fields WHERE id = ? AND table_id = ?", columnId, tableId);
+        publishChange(tableId);
+    }
+
+    /**
+     * Tells this node's listeners (after commit) and, via {@link MetadataChangeChannel}, the other
+     * nodes (on commit) that the table's metadata changed.
+     */
+    private void publishChange(UUID tableId) {
+        jdbcTemplate.queryForList(MetadataChangeChannel.NOTIFY_SQL, tableId.toString(), MetadataChangeChannel.NODE_ID);
+        eventPublisher.publishEvent(new TableMetadataChangedEvent(tableId));
     }
 
     private void upsertTableLabels(TableMetadata table) {
@@ -236,15 +358,14 @@ public class TableRepository {
      * Insert field row and set field LABEL (DEFAULT_LANGUAGE).
      */
     public void createColumnMetadataInDb(ColumnMetaData column, UUID tableId) {
-        String sql =
-                "INSERT INTO fields " +
-                        " (id, table_id, name, data_type, removable, primary_key, auto_generated, default_value, properties) " +
-                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?::jsonb, ?::jsonb)";
-
-        String defaultValueJson = toJsonOrNull(column.getDefaultValue());
-        String propsJson        = toJsonOrEmptyObject(column.getAdditionalProperties());
+        jdbcTemplate.update(INSERT_FIELD_SQL, fieldRow(column, tableId));
+        jdbcTemplate.update(UPSERT_FIELD_LABEL_SQL,
+                DEFAULT_LANGUAGE, column.getLabel(), column.getId()
+        );
+    }
 
-        jdbcTemplate.update(sql,
+    private static Object[] fieldRow(ColumnMetaData column, UUID tableId) {
+        return new Object[]{
                 column.getId(),
                 tableId,
                 column.getName(),
@@ -252,19 +373,9 @@ public class TableRepository {
                 safeBool(column.getRemovable()),
                 safeBool(column.getPrimaryKey()),
                 column.getDomain().isAutoIncrement(),  // auto_generated
-                defaultValueJson,
-                propsJson
-        );
-
-        // Upsert field label
-        String upsertLabelSql =
-                "UPDATE components SET nls_labels = " +
-                        "  jsonb_set( COALESCE(nls_labels,'{}'::jsonb), ARRAY[?,'LABEL'], to_jsonb(?::text), true) " +
-                        "WHERE id = ?::uuid";
-
-        jdbcTemplate.update(upsertLabelSql,
-                DEFAULT_LANGUAGE, column.getLabel(), column.getId()
-        );
+                toJsonOrNull(column.getDefaultValue()),
+                toJsonOrEmptyObject(column.getAdditionalProperties())
+        };
     }
 
     // ---- helpers ------------------------------------------------------------
@@ -0,0 +1,103 @@
+package org.p2proto.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.p2proto.config.VersionedCache;
+import org.p2proto.dto.TableMetadata;
+import org.p2proto.dto.TableSummary;
+import org.p2proto.repository.table.TableCatalog;
+import org.p2proto.repository.table.TableRepository;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Fills the {@code tables} and {@code tableSummaries} caches with the whole catalog once the
+ * context is up, so the first requests after a deploy do not each load metadata on their own.
+ * Everything comes from one
+ * catalog query ({@link TableRepository#findAllMetadata()}) and is stored under the keys the
+ * {@code @Cacheable} methods of {@link TableRepository} use, and published as the first
+ * {@link TableCatalog} snapshot. Entries evicted while the query ran are not stored, they would
+ * be stale.
+ * <p>
+ * The application reports ready ({@link #isReady()}) once the warm-up has run. A failed warm-up
+ * is logged and still counts as done: the caches then fill on demand as before.
+ */
+@Slf4j
+@Component
+public class CatalogWarmup {
+
+    private final TableRepository tableRepository;
+    private final CacheManager cacheManager;
+    private final TableCatalog tableCatalog;
+    private final AtomicBoolean started = new AtomicBoolean();
+    private volatile boolean ready;
+
+    public CatalogWarmup(TableRepository tableRepository, CacheManager cacheManager, TableCatalog tableCatalog) {
+        this.tableRepository = tableRepository;
+        this.cacheManager = cacheManager;
+        this.tableCatalog = tableCatalog;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void warmUp() {
+        // the DispatcherServlet's child context publishes its own refresh into this one
+        if (!started.compareAndSet(false, true)) return;
+
+        long start = System.nanoTime();
+        try {
+            Cache cache = Objects.requireNonNull(cacheManager.getCache(TableRepository.CACHE_NAME), TableRepository.CACHE_NAME);
+            Cache summaryCache = Objects.requireNonNull(cacheManager.getCache(TableRepository.SUMMARY_CACHE_NAME),
+                    TableRepository.SUMMARY_CACHE_NAME);
+            long[] tableGenerations = generations(cache);
+            long[] summaryGenerations = generations(summaryCache);
+            long catalogMark = tableCatalog.loadMark();
+            Map<UUID, TableMetadata> catalog = tableRepository.findAllMetadata();
+
+            Map<String, UUID> logicalNameToId = new HashMap<>();
+            List<TableSummary> summaries = new ArrayList<>(catalog.size());
+            for (TableMetadata table : catalog.values()) {
+                store(cache, table.getId(), table, tableGenerations);
+                logicalNameToId.put(table.getTableName(), table.getId());
+                summaries.add(TableSummary.summaryBuilder()
+                        .id(table.getId())
+                        .tableName(table.getTableName())
+                        .tableLabel(table.getTableLabel())
+                        .tablePluralLabel(table.getTablePluralLabel())
+                        .tableType(table.getTableType())
+                        .build());
+            }
+            summaries.sort(Comparator.comparing(TableSummary::getTablePluralLabel));
+            store(summaryCache, TableRepository.LOGICAL_NAME_TO_ID_KEY, logicalNameToId, summaryGenerations);
+            store(summaryCache, TableRepository.ALL_TABLES_KEY, summaries, summaryGenerations);
+            tableCatalog.publishAll(catalog.values(), catalogMark);
+
+            log.info("Catalog warm-up: {} tables ({} cache entries) in {} ms",
+                    catalog.size(), catalog.size() + 2, (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.error("Catalog warm-up failed after {} ms, metadata will load on demand",
+                    (System.nanoTime() - start) / 1_000_000, e);
+        } finally {
+            ready = true;
+        }
+    }
+
+    private static long[] generations(Cache cache) {
+        VersionedCache versioned = VersionedCache.unwrap(cache);
+        return (versioned == null) ? null : versioned.generations();
+    }
+
+    private static void store(Cache cache, Object key, Object value, long[] generations) {
+        VersionedCache versioned = VersionedCache.unwrap(cache);
+        if (versioned == null) cache.put(key, value);
+        else versioned.putIfUnchanged(key, value, generations);
+    }
+}
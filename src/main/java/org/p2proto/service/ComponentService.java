@@ -10,6 +10,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.Timestamp;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -49,6 +50,64 @@ public class ComponentService {
         return historyRepository.save(history);
     }
 
+    /**
+     * History entry for a change that already went through, recording its DDL.
+     */
+    @Transactional
+    public Long recordHistory(UUID componentId, Integer userId, List<String> ddl) {
+        ComponentHistory history = new ComponentHistory();
+        history.setComponentId(componentId);
+        history.setStatus(ComponentHistory.ComponentHistoryStatus.COMPLETED);
+        history.setUserId(userId);
+        history.setTimestamp(Timestamp.from(Instant.now()));
+        history.setDdlStatement(String.join("\n", ddl));
+        history.setOldState("{}");
+        history.setNewState("{}");
+
+        return historyRepository.save(history);
+    }
+
+    /**
+     * Batch variant of {@link #createComponent}: {@code count} components in one JDBC batch,
+     * returned in insert order.
+     */
+    @Transactional
+    public List<Component> createComponents(Component.ComponentTypeEnum componentType, Component.ComponentStatusEnum componentStatus,
+                                            int count, Integer userId) {
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Component> components = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Component component = new Component();
+            component.setComponentType(componentType);
+            component.setStatus(componentStatus);
+            component.setCreatedAt(now);
+            component.setCreatedBy(userId);
+            components.add(component);
+        }
+        componentRepository.saveAll(components);
+        return components;
+    }
+
+    /**
+     * Batch variant of {@link #createHistory}: one entry per component, ids returned in the same order.
+     */
+    @Transactional
+    public List<Long> createHistory(List<UUID> componentIds, ComponentHistory.ComponentHistoryStatus status, Integer userId) {
+        Timestamp now = Timestamp.from(Instant.now());
+        List<ComponentHistory> entries = new ArrayList<>(componentIds.size());
+        for (UUID componentId : componentIds) {
+            ComponentHistory history = new ComponentHistory();
+            history.setComponentId(componentId);
+            history.setStatus(status);
+            history.setUserId(userId);
+            history.setTimestamp(now);
+            history.setOldState("{}");
+            history.setNewState("{}");
+            entries.add(history);
+        }
+        return historyRepository.saveAll(entries);
+    }
+
     /**
      * Mark the component as ACTIVE and the most recent history entry as COMPLETED.
      */
@@ -70,6 +129,19 @@ public class ComponentService {
                 });
     }
 
+    /**
+     * Mark the component as INACTIVE, e.g. a field whose column was dropped.
+     */
+    @Transactional
+    public void deactivate(UUID componentId, Integer userId) {
+        componentRepository.findById(componentId).ifPresent(c -> {
+            c.setStatus(Component.ComponentStatusEnum.INACTIVE);
+            c.setUpdatedAt(Timestamp.from(Instant.now()));
+            c.setUpdatedBy(userId);
+            componentRepository.update(c);
+        });
+    }
+
     /**
      * Mark the component as INACTIVE and the history entry as FAILED.
      */
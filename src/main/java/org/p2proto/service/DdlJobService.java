@@ -0,0 +1,132 @@
+package org.p2proto.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.p2proto.dto.CurrentUser;
+import org.p2proto.dto.DdlJob;
+import org.p2proto.dto.TableMetadata;
+import org.p2proto.model.component.ComponentHistory;
+import org.p2proto.repository.component.ComponentHistoryRepository;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs DDL off the request thread, so a table that waits on locks does not hold a servlet thread.
+ * <p>
+ * Submitting commits the table's component in LOCKED status with an IN_PROGRESS history entry,
+ * whose id is the job id, and queues the DDL to a small dedicated pool. The job's outcome is
+ * written to the same rows (ACTIVE/COMPLETED or INACTIVE/FAILED), so {@link #find} answers on
+ * any node. A job still queued or running when the node stops stays IN_PROGRESS until the next
+ * startup, which marks such leftovers FAILED ({@link #failLeftoverJobs}).
+ * <p>
+ * Pool size comes from the system property {@code p2proto.ddl.workers} (default 2). Jobs count as
+ * leftovers once they are older than {@code p2proto.ddl.leftoverAfterMs} (default 0: every job
+ * found at startup); with several nodes, set it above the longest job so a starting node does not
+ * fail the jobs of the others.
+ */
+@Slf4j
+@Service
+public class DdlJobService implements DisposableBean {
+
+    static final int MAX_QUEUED_JOBS = 100;
+    private static final long SHUTDOWN_WAIT_SECONDS = 30;
+
+    private final TableService tableService;
+    private final ComponentService componentService;
+    private final ComponentHistoryRepository historyRepository;
+    private final ExecutorService executor;
+    private final long leftoverAfterMs = Long.getLong("p2proto.ddl.leftoverAfterMs", 0);
+    private final AtomicBoolean recovered = new AtomicBoolean();
+
+    public DdlJobService(TableService tableService,
+                         ComponentService componentService,
+                         ComponentHistoryRepository historyRepository) {
+        this.tableService = tableService;
+        this.componentService = componentService;
+        this.historyRepository = historyRepository;
+        int workers = Math.max(1, Integer.getInteger("p2proto.ddl.workers", 2));
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(MAX_QUEUED_JOBS),
+                r -> {
+                    Thread t = new Thread(r, "ddl-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    /**
+     * Queues creation of the table.
+     *
+     * @return the job, IN_PROGRESS
+     * @throws RejectedExecutionException when the queue is full; the job is then already marked FAILED
+     */
+    public DdlJob submitCreateTable(TableMetadata tableMetadata, CurrentUser currentUser) {
+        TableService.Provisioning provisioning = tableService.startCreateTable(currentUser);
+        try {
+            executor.execute(() -> runCreateTable(tableMetadata, provisioning, currentUser));
+        } catch (RejectedExecutionException e) {
+            componentService.markFailure(provisioning.tableId(), provisioning.historyId());
+            throw e;
+        }
+        log.info("Queued DDL job {} creating table {}", provisioning.historyId(), tableMetadata.getTableName());
+        return new DdlJob(provisioning.historyId(), provisioning.tableId(),
+                ComponentHistory.ComponentHistoryStatus.IN_PROGRESS);
+    }
+
+    /**
+     * Marks create-table jobs left IN_PROGRESS by a stopped node FAILED, and their tables INACTIVE,
+     * so clients waiting on them stop and the components are no longer LOCKED. A failure is logged;
+     * the jobs then stay as they are.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void failLeftoverJobs() {
+        // the DispatcherServlet's child context publishes its own refresh into this one
+        if (!recovered.compareAndSet(false, true)) return;
+        try {
+            Timestamp before = new Timestamp(System.currentTimeMillis() - leftoverAfterMs);
+            for (ComponentHistory h : historyRepository.findInProgressTableJobs(before)) {
+                componentService.markFailure(h.getComponentId(), h.getId());
+                log.warn("DDL job {} was left unfinished by a stopped node, marked FAILED", h.getId());
+            }
+        } catch (RuntimeException e) {
+            log.error("Failing leftover DDL jobs failed", e);
+        }
+    }
+
+    /** @return the job, or empty when there is no history entry with that id */
+    public Optional<DdlJob> find(long jobId) {
+        return historyRepository.findById(jobId)
+                .map(h -> new DdlJob(h.getId(), h.getComponentId(), h.getStatus()));
+    }
+
+    private void runCreateTable(TableMetadata tableMetadata, TableService.Provisioning provisioning,
+                                CurrentUser currentUser) {
+        long start = System.nanoTime();
+        try {
+            tableService.finishCreateTable(tableMetadata, provisioning, currentUser);
+            log.info("DDL job {} created table {} in {} ms", provisioning.historyId(), tableMetadata.getTableName(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (RuntimeException e) {
+            log.error("DDL job {} failed to create table {}", provisioning.historyId(), tableMetadata.getTableName(), e);
+            // the job's own transaction rolled back; record the failure in a new one
+            componentService.markFailure(provisioning.tableId(), provisioning.historyId());
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS)) {
+            log.warn("DDL jobs still running after {} s, interrupting", SHUTDOWN_WAIT_SECONDS);
+            executor.shutdownNow();
+        }
+    }
+}
@@ -3,23 +3,39 @@ package org.p2proto.service;
 import liquibase.exception.DatabaseException;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.p2proto.ddl.AddColumnCommand;
+import org.p2proto.ddl.CreateIndexCommand;
 import org.p2proto.ddl.CreateTableCommand;
 import org.p2proto.ddl.DDLExecutor;
+import org.p2proto.ddl.DropColumnCommand;
 import org.p2proto.domain.DomainFactory;
 import org.p2proto.domain.DomainType;
+import org.p2proto.dto.BatchResult;
 import org.p2proto.dto.ColumnDefaultHolder;
 import org.p2proto.dto.ColumnMetaData;
 import org.p2proto.dto.CurrentUser;
+import org.p2proto.dto.ImportResult;
 import org.p2proto.dto.TableMetadata;
 import org.p2proto.model.component.Component;
 import org.p2proto.model.component.ComponentHistory;
+import org.p2proto.repository.CrudRepositoryRegistry;
+import org.p2proto.repository.TableMetadataCrudRepository;
+import org.p2proto.repository.copy.ExportFormat;
+import org.p2proto.repository.copy.ParallelExporter;
+import org.p2proto.repository.copy.RecordReader;
 import org.p2proto.repository.table.TableRepository;
+import org.p2proto.sql.Criterion;
+import org.p2proto.sql.Sort;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.sql.SQLException;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -35,68 +51,259 @@ public class TableService {
     private final DDLExecutor ddlExecutor;
     private final ComponentService componentService;
     private final TableRepository tableRepository;
+    private final CrudRepositoryRegistry repositories;
+    private final ParallelExporter parallelExporter;
 
     @Autowired
     public TableService(ComponentService componentService,
                         JdbcTemplate jdbcTemplate,
                         TableRepository tableRepository,
+                        CrudRepositoryRegistry repositories,
+                        ParallelExporter parallelExporter,
                         DDLExecutor ddlExecutor) {
         this.componentService = componentService;
         this.jdbcTemplate = jdbcTemplate;
         this.ddlExecutor = ddlExecutor;
         this.tableRepository = tableRepository;
+        this.repositories = repositories;
+        this.parallelExporter = parallelExporter;
     }
 
     // ---------- Public API ----------
 
-    @Transactional(propagation = Propagation.SUPPORTS)
+    /**
+     * Creates the table, its components, history and metadata in one transaction:
+     * if any step fails, none of it is kept.
+     */
+    @Transactional
     public void createTable(String tableName, String tableLabel, String tablePluralLabel, CurrentUser currentUser) {
         createTableInternal(new CreateTableCommand(tableName, tableLabel, tablePluralLabel), currentUser);
     }
 
-    @Transactional(propagation = Propagation.SUPPORTS)
+    /** See {@link #createTable(String, String, String, CurrentUser)}. */
+    @Transactional
     public void createTable(TableMetadata tableMetadata, CurrentUser currentUser) {
         createTableInternal(new CreateTableCommand(tableMetadata), currentUser);
     }
 
+    /**
+     * First half of an asynchronous create, see {@link DdlJobService}: commits the TABLE component
+     * in LOCKED status with an IN_PROGRESS history entry, so the pending table is visible to other
+     * transactions before any DDL runs.
+     */
+    @Transactional
+    public Provisioning startCreateTable(CurrentUser currentUser) {
+        return startProvisioning(currentUser.getCurrentUserId());
+    }
+
+    /**
+     * Second half of an asynchronous create: DDL, fields and metadata in one transaction,
+     * then marks the component and history entry from {@link #startCreateTable} as done.
+     *
+     * @throws IllegalStateException when the DDL fails; nothing of this step is kept
+     */
+    @Transactional
+    public void finishCreateTable(TableMetadata tableMetadata, Provisioning provisioning, CurrentUser currentUser) {
+        finishProvisioning(new CreateTableCommand(tableMetadata), provisioning, currentUser.getCurrentUserId());
+    }
+
+    /**
+     * Adds a column to an existing table; see {@link AddColumnCommand} for what it accepts.
+     * FIELD component, field row, DDL and history commit together; caches are evicted after the commit.
+     *
+     * @return the new column's component id
+     * @throws IllegalStateException when the DDL fails, e.g. the table stayed locked through all retries
+     */
+    @Transactional
+    public UUID addColumn(UUID tableId, ColumnMetaData column, CurrentUser currentUser) {
+        TableMetadata table = tableRepository.findByID(tableId);
+        if (table.getColumnsByName().containsKey(column.getName())) {
+            throw new IllegalArgumentException("Column already exists: " + column.getName());
+        }
+        Integer userId = currentUser.getCurrentUserId();
+        AddColumnCommand command = new AddColumnCommand(table.getTableName(), column);
+        try {
+            // metadata first: the DDL's ACCESS EXCLUSIVE lock is then held only for the DDL and the commit
+            Component fieldComponent = componentService.createComponent(
+                    Component.ComponentTypeEnum.FIELD,
+                    Component.ComponentStatusEnum.ACTIVE,
+                    userId
+            );
+            tableRepository.addColumnMetadataInDb(tableId, new ColumnMetaData(
+                    fieldComponent.getId(),
+                    column.getName(),
+                    column.getLabel(),
+                    column.getDomain(),
+                    false,
+                    column.getRemovable(),
+                    column.getDefaultValue(),
+                    column.getAdditionalProperties()
+            ));
+
+            List<String> ddl = ddlExecutor.executeDDL(command);
+            componentService.recordHistory(fieldComponent.getId(), userId, ddl);
+            return fieldComponent.getId();
+        } catch (DatabaseException | SQLException e) {
+            throw new IllegalStateException("Failed to add column " + column.getName() + " to " + table.getTableName(), e);
+        }
+    }
+
+    /**
+     * Drops a removable column. Field row, component status and DDL commit together;
+     * caches are evicted after the commit.
+     *
+     * @throws IllegalStateException when the DDL fails
+     */
+    @Transactional
+    public void dropColumn(UUID tableId, String columnName, CurrentUser currentUser) {
+        TableMetadata table = tableRepository.findByID(tableId);
+        ColumnMetaData column = table.getColumnsByName().get(columnName);
+        if (column == null) {
+            throw new IllegalArgumentException("Unknown column: " + columnName);
+        }
+        if (Boolean.TRUE.equals(column.getPrimaryKey()) || !Boolean.TRUE.equals(column.getRemovable())) {
+            throw new IllegalArgumentException("Column cannot be dropped: " + columnName);
+        }
+        Integer userId = currentUser.getCurrentUserId();
+        try {
+            tableRepository.deleteColumnMetadataInDb(tableId, column.getId());
+            componentService.deactivate(column.getId(), userId);
+            List<String> ddl = ddlExecutor.executeDDL(new DropColumnCommand(table.getTableName(), columnName));
+            componentService.recordHistory(column.getId(), userId, ddl);
+        } catch (DatabaseException | SQLException e) {
+            throw new IllegalStateException("Failed to drop column " + columnName + " from " + table.getTableName(), e);
+        }
+    }
+
+    /**
+     * Builds an index with {@code CREATE INDEX CONCURRENTLY}, outside any transaction, and records
+     * it in the table's history once built. Can take long on a large table; writes go on meanwhile.
+     *
+     * @throws IllegalStateException when the build fails, e.g. duplicates for a unique index
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void createIndex(UUID tableId, List<String> columnNames, boolean unique, CurrentUser currentUser) {
+        TableMetadata table = tableRepository.findByID(tableId);
+        for (String name : columnNames) {
+            ColumnMetaData c = table.getColumnsByName().get(name);
+            if (c == null || c.getDomain().isVirtual()) {
+                throw new IllegalArgumentException("Column cannot be indexed: " + name);
+            }
+        }
+        try {
+            List<String> ddl = ddlExecutor.executeOnline(new CreateIndexCommand(table.getTableName(), columnNames, unique));
+            componentService.recordHistory(tableId, currentUser.getCurrentUserId(), ddl);
+        } catch (DatabaseException | SQLException e) {
+            throw new IllegalStateException("Failed to create index on " + table.getTableName() + " " + columnNames, e);
+        }
+    }
+
+    /**
+     * Streams records through a server-side cursor. The read-only transaction switches
+     * autocommit off, which PostgreSQL needs before it honours the fetch size.
+     */
+    @Transactional(readOnly = true)
+    public void streamRecords(TableMetadata tableMetadata, Criterion criterion, Sort sort,
+                              Collection<String> fields, RowCallbackHandler handler) {
+        repositories.get(tableMetadata).streamBy(criterion, sort, fields, handler);
+    }
+
+    /** Inserts and updates a batch of records in one transaction, using JDBC batches. */
+    @Transactional
+    public BatchResult saveRecords(TableMetadata tableMetadata, List<Map<String, Object>> inserts,
+                                   Map<Object, Map<String, Object>> updates) {
+        TableMetadataCrudRepository repo = repositories.get(tableMetadata);
+        return new BatchResult(repo.insertAll(inserts), repo.updateAll(updates));
+    }
+
+    /**
+     * Inserts or updates records in one transaction via {@code INSERT ... ON CONFLICT}.
+     *
+     * @param conflictColumn unique column identifying existing rows; {@code null} for the primary key
+     * @return number of inserted or updated rows
+     */
+    @Transactional
+    public int upsertRecords(TableMetadata tableMetadata, String conflictColumn, List<Map<String, Object>> records) {
+        return repositories.get(tableMetadata).upsertAll(conflictColumn, records);
+    }
+
+    /** Bulk import through COPY in one transaction: all rows or none. */
+    @Transactional
+    public ImportResult importRecords(TableMetadata tableMetadata, RecordReader reader, long maxErrors) {
+        return repositories.get(tableMetadata).copyFrom(reader, maxErrors);
+    }
+
+    /** Exports records through COPY TO STDOUT into {@code out}; returns the row count. */
+    @Transactional(readOnly = true)
+    public long exportRecords(TableMetadata tableMetadata, Criterion criterion, Collection<String> fields,
+                              ExportFormat format, OutputStream out) {
+        return repositories.get(tableMetadata).copyTo(criterion, fields, format, out);
+    }
+
+    /**
+     * Reserves connections for {@link #exportRecordsParallel}, before anything is written to the client.
+     *
+     * @throws java.util.concurrent.RejectedExecutionException when running exports hold too many connections
+     */
+    public ParallelExporter.Admission admitParallelExport(int slices) {
+        return parallelExporter.admit(slices);
+    }
+
+    /**
+     * Parallel variant of {@link #exportRecords}: the slices share this transaction's snapshot,
+     * which needs REPEATABLE READ and stays open until the last slice is written.
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public long exportRecordsParallel(ParallelExporter.Admission admission, TableMetadata tableMetadata,
+                                      Criterion criterion, Collection<String> fields, ExportFormat format,
+                                      boolean ordered, OutputStream out) throws IOException {
+        return parallelExporter.export(admission, repositories.get(tableMetadata), criterion, fields, format, ordered, out);
+    }
+
     // ---------- Internals ----------
 
     private void createTableInternal(CreateTableCommand command, CurrentUser currentUser) {
-        Component tableComponent = null;
-        Long historyId = null;
+        Integer userId = currentUser.getCurrentUserId();
+        finishProvisioning(command, startProvisioning(userId), userId);
+    }
 
-        try {
-            TableMetadata inputMeta = command.getTable();
+    // 1) Create TABLE component + history BEFORE DDL
+    private Provisioning startProvisioning(Integer userId) {
+        Component tableComponent = componentService.createComponent(
+                Component.ComponentTypeEnum.TABLE,
+                Component.ComponentStatusEnum.LOCKED,
+                userId
+        );
+        Long historyId = componentService.createHistory(
+                tableComponent.getId(),
+                ComponentHistory.ComponentHistoryStatus.IN_PROGRESS,
+                userId
+        );
+        return new Provisioning(tableComponent.getId(), historyId);
+    }
 
-            // 1) Create TABLE component + history BEFORE DDL
-            tableComponent = componentService.createComponent(
-                    Component.ComponentTypeEnum.TABLE,
-                    Component.ComponentStatusEnum.LOCKED,
-                    currentUser.getCurrentUserId()
-            );
-            historyId = componentService.createHistory(
-                    tableComponent.getId(),
-                    ComponentHistory.ComponentHistoryStatus.IN_PROGRESS,
-                    currentUser.getCurrentUserId()
-            );
+    private void finishProvisioning(CreateTableCommand command, Provisioning provisioning, Integer userId) {
+        TableMetadata inputMeta = command.getTable();
 
-            // 2) Execute DDL
+        try {
+            // 2) Execute DDL (same transaction, PostgreSQL DDL is transactional)
             List<String> ddl = ddlExecutor.executeDDL(command);
 
-            // 3) Create FIELD components AFTER successful DDL
+            // 3) Create FIELD components and their history, one batch each
+            List<Component> fieldComponents = componentService.createComponents(
+                    Component.ComponentTypeEnum.FIELD,
+                    Component.ComponentStatusEnum.ACTIVE,
+                    inputMeta.getColumns().size(),
+                    userId
+            );
+            componentService.createHistory(
+                    fieldComponents.stream().map(Component::getId).toList(),
+                    ComponentHistory.ComponentHistoryStatus.COMPLETED,
+                    userId
+            );
             Map<String, UUID> colIds = new LinkedHashMap<>();
-            for (ColumnMetaData c : inputMeta.getColumns()) {
-                Component fieldComponent = componentService.createComponent(
-                        Component.ComponentTypeEnum.FIELD,
-                        Component.ComponentStatusEnum.ACTIVE,
-                        currentUser.getCurrentUserId()
-                );
-                componentService.createHistory(
-                        fieldComponent.getId(),
-                        ComponentHistory.ComponentHistoryStatus.COMPLETED,
-                        currentUser.getCurrentUserId()
-                );
-                colIds.put(c.getName(), fieldComponent.getId());
+            for (int i = 0; i < fieldComponents.size(); i++) {
+                colIds.put(inputMeta.getColumns().get(i).getName(), fieldComponents.get(i).getId());
             }
 
             // 4) Rebuild columns with assigned component IDs (preserve decorators)
@@ -120,7 +327,7 @@ public class TableService {
 
             // 5) Build final immutable TableMetadata with table component ID + rebuilt columns
             TableMetadata metaToPersist = TableMetadata.builder()
-                    .id(tableComponent.getId())
+                    .id(provisioning.tableId())
                     .tableName(inputMeta.getTableName())
                     .tableLabel(inputMeta.getTableLabel())
                     .tablePluralLabel(inputMeta.getTablePluralLabel())
@@ -131,16 +338,22 @@ public class TableService {
 
             // 6) Persist metadata and mark success
             tableRepository.createMetadataInDb(metaToPersist);
-            componentService.markSuccess(tableComponent.getId(), historyId, ddl);
+            componentService.markSuccess(provisioning.tableId(), provisioning.historyId(), ddl);
 
         } catch (DatabaseException | SQLException e) {
-            log.error("Failed to create table", e);
-            if (tableComponent != null) {
-                componentService.markFailure(tableComponent.getId(), historyId);
-            }
+            // rethrown unchecked so the whole provisioning rolls back
+            throw new IllegalStateException("Failed to create table " + inputMeta.getTableName(), e);
         }
     }
 
+    /**
+     * TABLE component and its IN_PROGRESS history entry of a table being created.
+     *
+     * @param tableId   component id, which becomes the table id
+     * @param historyId history entry marked COMPLETED or FAILED at the end
+     */
+    public record Provisioning(UUID tableId, Long historyId) {}
+
     // ---------- Defaults ----------
 
     /**
@@ -1,6 +1,7 @@
 package org.p2proto.service;
 
 import lombok.Getter;
+import org.p2proto.config.ReplicaRoutingDataSource;
 import org.p2proto.dto.CurrentUser;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
@@ -26,7 +27,8 @@ public class UserService {
         // If you want to handle the case where no row is found, you can
         // catch EmptyResultDataAccessException and return null or throw
         // a custom exception instead.
-        return jdbcTemplate.queryForObject(
+        // read path: may be served by a replica, see ReplicaRoutingDataSource
+        return ReplicaRoutingDataSource.read(() -> jdbcTemplate.queryForObject(
                 sql,
                 new Object[] { userUuid },
                 (rs, rowNum) -> {
@@ -44,6 +46,6 @@ public class UserService {
 
                     return new CurrentUser(id, uuid, username, fullName.trim(), email);
                 }
-        );
+        ));
     }
 }
@@ -0,0 +1,109 @@
+package org.p2proto.sql;
+
+import org.p2proto.domain.DomainType;
+import org.p2proto.dto.ColumnMetaData;
+import org.p2proto.dto.TableMetadata;
+
+import java.util.*;
+
+/**
+ * Parses URL filter expressions into {@link Criterion} trees.
+ * <p>
+ * Each {@code f} parameter holds one expression {@code column:op[:value]}. Several {@code f}
+ * parameters are ANDed; alternatives inside one parameter separated by {@code |} are ORed:
+ * <pre>
+ *   ?f=email:ilike:%acme%&amp;f=created_at:ge:2025-01-01T00:00
+ *   ?f=first_name:eq:Ann|first_name:eq:Bob
+ *   ?f=id:in:1,2,3&amp;f=last_name:notnull
+ * </pre>
+ * Columns are checked against {@link TableMetadata#getColumnsByName()} and values are
+ * converted per column domain so they bind with the column's SQL type.
+ */
+public final class FilterParser {
+
+    private static final Map<String, Op> OPS = Map.ofEntries(
+            Map.entry("eq", Op.EQ), Map.entry("ne", Op.NE),
+            Map.entry("gt", Op.GT), Map.entry("ge", Op.GE),
+            Map.entry("lt", Op.LT), Map.entry("le", Op.LE),
+            Map.entry("like", Op.LIKE), Map.entry("ilike", Op.ILIKE),
+            Map.entry("in", Op.IN), Map.entry("nin", Op.NOT_IN),
+            Map.entry("between", Op.BETWEEN),
+            Map.entry("null", Op.IS_NULL), Map.entry("notnull", Op.IS_NOT_NULL)
+    );
+
+    private FilterParser() {}
+
+    /** @return combined criterion, or {@code null} when there is nothing to filter on */
+    public static Criterion parse(TableMetadata meta, String[] expressions) {
+        if (expressions == null) return null;
+        List<Criterion> and = new ArrayList<>();
+        for (String expr : expressions) {
+            if (expr == null || expr.isBlank()) continue;
+            String[] alternatives = expr.split("\\|");
+            List<Criterion> or = new ArrayList<>(alternatives.length);
+            for (String alt : alternatives) or.add(parseCondition(meta, alt.trim()));
+            and.add(or.size() == 1 ? or.get(0) : Group.or(or.toArray(new Criterion[0])));
+        }
+        if (and.isEmpty()) return null;
+        return and.size() == 1 ? and.get(0) : Group.and(and.toArray(new Criterion[0]));
+    }
+
+    static Condition parseCondition(TableMetadata meta, String expr) {
+        String[] parts = expr.split(":", 3);
+        if (parts.length < 2) throw new IllegalArgumentException("Filter must be column:op[:value]: " + expr);
+
+        ColumnMetaData col = meta.getColumnsByName().get(parts[0]);
+        if (col == null) throw new IllegalArgumentException("Unknown filter column: " + parts[0]);
+        DomainType d = col.getDomain();
+        if (d.isVirtual() || "PASSWORD".equalsIgnoreCase(d.getInternalName())) {
+            throw new IllegalArgumentException("Column cannot be filtered: " + parts[0]);
+        }
+
+        Op op = OPS.get(parts[1].toLowerCase(Locale.ROOT));
+        if (op == null) throw new IllegalArgumentException("Unknown filter operator: " + parts[1]);
+
+        String name = col.getName();
+        String raw = (parts.length > 2) ? parts[2] : null;
+        return switch (op) {
+            case IS_NULL, IS_NOT_NULL -> Condition.of(name, op, null);
+            case LIKE, ILIKE -> {
+                if (!"TEXT".equalsIgnoreCase(d.getInternalName())) {
+                    throw new IllegalArgumentException("Pattern match needs a TEXT column: " + name);
+                }
+                yield Condition.of(name, op, requireValue(raw, expr));
+            }
+            case IN, NOT_IN -> Condition.of(name, op, values(d, requireValue(raw, expr)));
+            case BETWEEN -> {
+                List<Object> pair = values(d, requireValue(raw, expr));
+                if (pair.size() != 2) throw new IllegalArgumentException("between needs two values: " + expr);
+                yield Condition.of(name, op, pair);
+            }
+            default -> Condition.of(name, op, value(d, requireValue(raw, expr)));
+        };
+    }
+
+    /** Converts a textual value to the Java type the column domain binds with. */
+    public static Object value(DomainType d, String raw) {
+        try {
+            return switch (d.getInternalName()) {
+                case "INTEGER", "AUTOINCREMENT" -> Long.valueOf(raw.trim());
+                case "FLOAT" -> Double.valueOf(raw.trim());
+                case "TEXT" -> raw;
+                default -> d.convertValue(raw.trim()); // UUID, BOOLEAN, DATE, DATETIME
+            };
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid " + d.getInternalName() + " value: " + raw, e);
+        }
+    }
+
+    private static List<Object> values(DomainType d, String raw) {
+        List<Object> out = new ArrayList<>();
+        for (String v : raw.split(",")) out.add(value(d, v));
+        return out;
+    }
+
+    private static String requireValue(String raw, String expr) {
+        if (raw == null) throw new IllegalArgumentException("Filter needs a value: " + expr);
+        return raw;
+    }
+}
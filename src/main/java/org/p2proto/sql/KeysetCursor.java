@@ -0,0 +1,57 @@
+package org.p2proto.sql;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.p2proto.dto.ColumnMetaData;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Opaque continuation token for keyset pagination.
+ * Holds the key values (sort column, then PK) of the last row of a page as a
+ * base64url-wrapped JSON array. On decode the values go back through the column
+ * domains so they bind with the right JDBC type.
+ */
+public final class KeysetCursor {
+
+    private static final ObjectMapper OM = new ObjectMapper();
+
+    private KeysetCursor() {}
+
+    public static String encode(List<?> values) {
+        List<Object> plain = new ArrayList<>(values.size());
+        for (Object v : values) plain.add(toPlain(v));
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(OM.writeValueAsBytes(plain));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot encode cursor", e);
+        }
+    }
+
+    public static List<Object> decode(String cursor, List<ColumnMetaData> keys) {
+        List<?> raw;
+        try {
+            raw = OM.readValue(Base64.getUrlDecoder().decode(cursor), List.class);
+        } catch (IllegalArgumentException | IOException e) {
+            throw new IllegalArgumentException("Malformed cursor: " + cursor, e);
+        }
+        if (raw == null || raw.size() != keys.size()) {
+            throw new IllegalArgumentException("Cursor does not match sort keys: " + cursor);
+        }
+        List<Object> out = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            Object v = raw.get(i);
+            out.add(v == null ? null : keys.get(i).getDomain().convertValue(v));
+        }
+        return out;
+    }
+
+    /** JSON-safe form; temporal values keep full precision as ISO strings. */
+    private static Object toPlain(Object v) {
+        if (v == null || v instanceof Number || v instanceof Boolean || v instanceof String) return v;
+        if (v instanceof java.sql.Timestamp ts) return ts.toLocalDateTime().toString();
+        if (v instanceof java.sql.Date d) return d.toLocalDate().toString();
+        return v.toString(); // UUID, java.time.*
+    }
+}
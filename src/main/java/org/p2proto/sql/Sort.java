@@ -0,0 +1,37 @@
+package org.p2proto.sql;
+
+import org.p2proto.domain.DomainType;
+import org.p2proto.dto.ColumnMetaData;
+import org.p2proto.dto.TableMetadata;
+
+/**
+ * Parsed {@code sort} request parameter: {@code column} sorts ascending, {@code -column} descending.
+ * The column is checked against the table by {@link #resolve}.
+ */
+public record Sort(String column, boolean descending) {
+
+    /** @return the parsed sort, or {@code null} when none was requested */
+    public static Sort parse(String raw) {
+        if (raw == null || raw.isBlank()) return null;
+        String s = raw.trim();
+        if (s.startsWith("-")) return new Sort(s.substring(1), true);
+        return new Sort(s, false);
+    }
+
+    /**
+     * Validates the column against the table.
+     *
+     * @return the sort column, or {@code null} when sorting by the primary key
+     * @throws IllegalArgumentException for unknown, password or formula columns
+     */
+    public ColumnMetaData resolve(TableMetadata meta) {
+        ColumnMetaData c = meta.getColumnsByName().get(column);
+        if (c == null) throw new IllegalArgumentException("Unknown sort column: " + column);
+        if (c.getName().equals(meta.getPrimaryKeyMeta().getName())) return null;
+        DomainType d = c.getDomain();
+        if (d.isVirtual() || "PASSWORD".equalsIgnoreCase(d.getInternalName())) {
+            throw new IllegalArgumentException("Column cannot be used for sorting: " + column);
+        }
+        return c;
+    }
+}
@@ -0,0 +1,48 @@
+package org.p2proto.sql;
+
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.core.namedparam.ParsedSql;
+
+import java.math.BigDecimal;
+
+/**
+ * Inlines bind parameters as SQL literals, for statements that cannot take parameters
+ * such as {@code COPY (SELECT ...) TO STDOUT}. Strings are single-quoted with quotes doubled,
+ * which is safe with {@code standard_conforming_strings} on (the PostgreSQL default).
+ */
+public final class SqlLiterals {
+
+    private SqlLiterals() {}
+
+    /** The WHERE clause with every parameter replaced by its literal. */
+    public static String inline(WhereSql ws) {
+        if (ws.sql().isEmpty()) return "";
+        ParsedSql parsed = NamedParameterUtils.parseSqlStatement(ws.sql());
+        String jdbcSql = NamedParameterUtils.substituteNamedParameters(parsed, ws.params());
+        Object[] values = NamedParameterUtils.buildValueArray(parsed, ws.params(), null);
+
+        // rendered criteria carry no quoted text of their own, so every '?' is a placeholder
+        StringBuilder out = new StringBuilder(jdbcSql.length() + values.length * 16);
+        int next = 0;
+        for (int i = 0; i < jdbcSql.length(); i++) {
+            char c = jdbcSql.charAt(i);
+            if (c == '?') out.append(literal(values[next++]));
+            else out.append(c);
+        }
+        return out.toString();
+    }
+
+    public static String literal(Object v) {
+        if (v == null) return "NULL";
+        if (v instanceof Boolean b) return b ? "TRUE" : "FALSE";
+        if (v instanceof BigDecimal d) return d.toPlainString();
+        if (v instanceof Double d && !Double.isFinite(d)) return quote(d.toString()); // 'NaN', 'Infinity'
+        if (v instanceof Number) return v.toString();
+        return quote(v.toString());
+    }
+
+    private static String quote(String s) {
+        if (s.indexOf('\0') >= 0) throw new IllegalArgumentException("NUL character in value");
+        return "'" + s.replace("'", "''") + "'";
+    }
+}
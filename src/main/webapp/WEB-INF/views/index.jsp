@@ -132,7 +132,14 @@
             })
                 .then(response => response.json())
                 .then(data => {
-                    if (data.status === 'success') {
+                    if (data.status === 'success' && data.statusUrl) {
+                        // Table create runs as a background job: wait for it before showing the list
+                        contentArea.innerHTML = '<p class="loading">Creating table...</p>';
+                        waitForJob(data.statusUrl, () => {
+                            loadContentFromUrl(data.redirectUrl);
+                            reloadSidebar();
+                        });
+                    } else if (data.status === 'success') {
                         // Fetch and load the updated list of records
                         loadContentFromUrl(data.redirectUrl);
                         if (form.getAttribute('action').includes('/tableSetup/save')) {
@@ -149,6 +156,32 @@
                 });
         }
 
+        // Polls a DDL job until it leaves IN_PROGRESS, then calls onDone or shows the failure.
+        // Gives up after JOB_MAX_POLLS polls (about 5 minutes); the job itself keeps going.
+        const JOB_MAX_POLLS = 300;
+
+        function waitForJob(statusUrl, onDone, polls = 1) {
+            const contentArea = document.getElementById('contentArea');
+            fetch(statusUrl, {credentials: 'same-origin', headers: {'Accept': 'application/json'}})
+                .then(response => response.json())
+                .then(job => {
+                    if (job.status === 'IN_PROGRESS' && polls >= JOB_MAX_POLLS) {
+                        contentArea.innerHTML = '<p class="error-message">Table creation is taking longer than expected. '
+                            + 'Check the table list later.</p>';
+                    } else if (job.status === 'IN_PROGRESS') {
+                        setTimeout(() => waitForJob(statusUrl, onDone, polls + 1), 1000);
+                    } else if (job.status === 'COMPLETED') {
+                        onDone();
+                    } else {
+                        contentArea.innerHTML = '<div class="alert alert-danger">Table creation failed.</div>';
+                    }
+                })
+                .catch(error => {
+                    console.error('Error polling job status:', error);
+                    contentArea.innerHTML = '<p class="error-message">Could not get the table creation status.</p>';
+                });
+        }
+
         // Function to load content from a given URL into contentArea
         function loadContentFromUrl(url) {
             const contentArea = document.getElementById('contentArea');
@@ -0,0 +1,125 @@
+package org.p2proto.config;
+
+import org.infinispan.Cache;
+import org.infinispan.manager.DefaultCacheManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.p2proto.dto.TableSummary;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Two members of the cluster configuration in one JVM, over the shared-loopback JGroups stack.
+ */
+class ClusteredCacheTest {
+
+    private static final long MAX_DELAY_MILLIS = 2_000;
+
+    private DefaultCacheManager node1;
+    private DefaultCacheManager node2;
+
+    @BeforeEach
+    void startNodes() throws IOException {
+        System.setProperty("infinispan.cluster.stack", "loopback");
+        System.setProperty("infinispan.cluster.name", "test-" + UUID.randomUUID());
+        node1 = new DefaultCacheManager(InfinispanConfig.configResource("cluster").substring(1));
+        node2 = new DefaultCacheManager(InfinispanConfig.configResource("cluster").substring(1));
+        node1.getCache("tables");
+        node2.getCache("tables");
+        waitFor(() -> node1.getMembers() != null && node1.getMembers().size() == 2);
+    }
+
+    @AfterEach
+    void stopNodes() {
+        if (node2 != null) node2.stop();
+        if (node1 != null) node1.stop();
+        System.clearProperty("infinispan.cluster.stack");
+        System.clearProperty("infinispan.cluster.name");
+    }
+
+    @Test
+    void tables_writeOnOneNode_evictsOnTheOther() {
+        Cache<Object, Object> tables1 = node1.getCache("tables");
+        Cache<Object, Object> tables2 = node2.getCache("tables");
+        UUID id = UUID.randomUUID();
+
+        // both nodes loaded the table from the database, the way the application stores it
+        loadStore(tables1).accept(id, "v1");
+        loadStore(tables2).accept(id, "v1");
+        assertEquals("v1", tables1.get(id));
+        assertEquals("v1", tables2.get(id));
+
+        tables1.remove(id);
+        waitFor(() -> tables2.get(id) == null);
+
+        tables2.putForExternalRead(id, "v1");
+        tables1.put(id, "v2");
+        waitFor(() -> tables2.get(id) == null);
+    }
+
+    @Test
+    void tables_loadOnOneNode_keepsTheOthersEntry() {
+        Cache<Object, Object> tables1 = node1.getCache("tables");
+        Cache<Object, Object> tables2 = node2.getCache("tables");
+        UUID id = UUID.randomUUID();
+
+        loadStore(tables2).accept(id, "v1");
+        loadStore(tables1).accept(id, "v1"); // a plain put would invalidate node2 synchronously
+
+        assertEquals("v1", tables2.get(id));
+    }
+
+    @Test
+    void tableSummaries_areReplicated() {
+        Cache<Object, Object> summaries1 = node1.getCache("tableSummaries");
+        Cache<Object, Object> summaries2 = node2.getCache("tableSummaries");
+        List<TableSummary> listing = List.of(TableSummary.summaryBuilder()
+                .id(UUID.randomUUID())
+                .tableName("items")
+                .tableType(TableSummary.TableTypeEnum.STANDARD)
+                .build());
+
+        summaries1.put("allTablesOrderedByPluralLabel", listing);
+        waitFor(() -> summaries2.get("allTablesOrderedByPluralLabel") != null);
+        @SuppressWarnings("unchecked")
+        List<TableSummary> copy = (List<TableSummary>) summaries2.get("allTablesOrderedByPluralLabel");
+        assertEquals("items", copy.get(0).getTableName());
+
+        summaries2.remove("allTablesOrderedByPluralLabel");
+        waitFor(() -> summaries1.get("allTablesOrderedByPluralLabel") == null);
+    }
+
+    @Test
+    void configResource_rejectsUnknownMode() {
+        assertEquals("/infinispan-config.xml", InfinispanConfig.configResource("local"));
+        assertThrows(IllegalArgumentException.class, () -> InfinispanConfig.configResource("distributed"));
+    }
+
+    /** The store {@link TwoLevelCacheManager} uses for loaded values, over a Spring cache backed by {@code cache}. */
+    private static BiConsumer<Object, Object> loadStore(Cache<Object, Object> cache) {
+        org.springframework.cache.Cache springCache = mock(org.springframework.cache.Cache.class);
+        when(springCache.getNativeCache()).thenReturn(cache);
+        return TwoLevelCacheManager.loadStore(springCache);
+    }
+
+    private static void waitFor(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + MAX_DELAY_MILLIS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) fail("Not reached within " + MAX_DELAY_MILLIS + " ms");
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(e);
+            }
+        }
+    }
+}
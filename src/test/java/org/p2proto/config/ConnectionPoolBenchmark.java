@@ -0,0 +1,81 @@
+package org.p2proto.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Per-query latency of a small primary-key style query through {@link DriverManagerDataSource}
+ * (a new connection per call) and through the Hikari pool, from concurrent callers.
+ * Needs a database: {@code P2PROTO_BENCH_JDBC_URL}, {@code P2PROTO_BENCH_USER}, {@code P2PROTO_BENCH_PASSWORD}.
+ * Run with {@code ./gradlew benchmark}; results go to stdout.
+ */
+@Tag("benchmark")
+class ConnectionPoolBenchmark {
+
+    private static final int THREADS = 16;
+    private static final int QUERIES_PER_THREAD = 200;
+    private static final String QUERY = "SELECT 1";
+
+    @Test
+    void compare_unpooledVsPooled() throws Exception {
+        String url = System.getenv("P2PROTO_BENCH_JDBC_URL");
+        assumeTrue(url != null, "P2PROTO_BENCH_JDBC_URL not set");
+        String user = System.getenv("P2PROTO_BENCH_USER");
+        String password = System.getenv("P2PROTO_BENCH_PASSWORD");
+
+        DriverManagerDataSource unpooled = new DriverManagerDataSource(url, user, password);
+        run("DriverManagerDataSource", unpooled);
+
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(url);
+        config.setUsername(user);
+        config.setPassword(password);
+        config.setMaximumPoolSize(THREADS);
+        config.setMinimumIdle(THREADS);
+        try (HikariDataSource pooled = new HikariDataSource(config)) {
+            run("HikariDataSource", pooled);
+        }
+    }
+
+    private static void run(String name, DataSource dataSource) throws Exception {
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.queryForObject(QUERY, Integer.class); // connect once before measuring
+
+        long[] nanos = new long[THREADS * QUERIES_PER_THREAD];
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        long start = System.nanoTime();
+        try {
+            Future<?>[] workers = new Future<?>[THREADS];
+            for (int t = 0; t < THREADS; t++) {
+                int offset = t * QUERIES_PER_THREAD;
+                workers[t] = pool.submit(() -> {
+                    for (int i = 0; i < QUERIES_PER_THREAD; i++) {
+                        long s = System.nanoTime();
+                        assertEquals(1, jdbc.queryForObject(QUERY, Integer.class));
+                        nanos[offset + i] = System.nanoTime() - s;
+                    }
+                });
+            }
+            for (Future<?> w : workers) w.get();
+        } finally {
+            pool.shutdownNow();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        Arrays.sort(nanos);
+        System.out.printf("%-24s %,10.0f queries/s  p50 %8.2f ms  p99 %8.2f ms%n",
+                name, nanos.length / (elapsed / 1e9),
+                nanos[nanos.length / 2] / 1e6, nanos[(int) (nanos.length * 0.99)] / 1e6);
+    }
+}
@@ -0,0 +1,82 @@
+package org.p2proto.config;
+
+import org.junit.jupiter.api.Test;
+import org.p2proto.dto.CacheStats;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class L1CacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final Cache l2 = spy(new ConcurrentMapCache("tables"));
+    private final L1Cache cache = new L1Cache(l2, 2, Duration.ofSeconds(5), now::get);
+
+    @Test
+    void get_hitInL1_skipsL2() {
+        l2.put("a", "A");
+        assertEquals("A", cache.get("a", String.class));
+        assertEquals("A", cache.get("a", String.class));
+
+        verify(l2, times(1)).get("a");
+        CacheStats stats = cache.stats();
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+    }
+
+    @Test
+    void get_afterTtl_readsL2Again() {
+        cache.put("a", "A");
+        now.addAndGet(Duration.ofSeconds(6).toNanos());
+        l2.put("a", "B"); // changed behind the L1, e.g. by another node
+
+        assertEquals("B", cache.get("a", String.class));
+    }
+
+    @Test
+    void evict_dropsBothLevels() {
+        cache.put("a", "A");
+        cache.evict("a");
+
+        assertNull(l2.get("a"));
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    void put_pastMaxEntries_dropsFromL1Only() {
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.put("c", "C");
+
+        assertEquals(1, cache.stats().evictions());
+        assertEquals("A", cache.get("a", String.class));
+        assertEquals("B", cache.get("b", String.class));
+        assertEquals("C", cache.get("c", String.class));
+    }
+
+    @Test
+    void get_withLoader_loadsOnceThroughL2() {
+        assertEquals("A", cache.get("a", () -> "A"));
+        assertEquals("A", cache.get("a", () -> fail("loaded twice")));
+        assertEquals("A", l2.get("a", String.class));
+    }
+
+    @Test
+    void get_evictedWhileReadingL2_doesNotStoreInL1() {
+        l2.put("a", "old");
+        doAnswer(inv -> {
+            Cache.ValueWrapper read = (Cache.ValueWrapper) inv.callRealMethod();
+            cache.evict("a"); // the change commits after L2 was read
+            return read;
+        }).doCallRealMethod().when(l2).get("a");
+
+        assertEquals("old", cache.get("a", String.class));
+        l2.put("a", "new");
+        assertEquals("new", cache.get("a", String.class));
+    }
+}
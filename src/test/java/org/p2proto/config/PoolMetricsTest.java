@@ -0,0 +1,27 @@
+package org.p2proto.config;
+
+import org.junit.jupiter.api.Test;
+import org.p2proto.dto.ConnectionPoolStats;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PoolMetricsTest {
+
+    @Test
+    void recordAcquire_countsIntoUpperBoundBucket() {
+        PoolMetrics metrics = new PoolMetrics();
+        metrics.recordAcquire(TimeUnit.MICROSECONDS.toNanos(50));  // <= 0.1 ms
+        metrics.recordAcquire(TimeUnit.MILLISECONDS.toNanos(1));   // <= 1 ms
+        metrics.recordAcquire(TimeUnit.MILLISECONDS.toNanos(3));   // <= 5 ms
+        metrics.recordAcquire(TimeUnit.SECONDS.toNanos(10));       // beyond the last bound
+
+        ConnectionPoolStats stats = metrics.snapshot();
+        assertEquals(1L, stats.acquireMillis().get("0.1"));
+        assertEquals(1L, stats.acquireMillis().get("1.0"));
+        assertEquals(1L, stats.acquireMillis().get("5.0"));
+        assertEquals(1L, stats.acquireMillis().get("+Inf"));
+        assertEquals(0L, stats.acquireMillis().get("10.0"));
+    }
+}
@@ -0,0 +1,47 @@
+package org.p2proto.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.*;
+
+class ReplicaLagMonitorTest {
+
+    @Test
+    void status_failedCheck_isUnknownAndRetriedAfterInterval() throws SQLException {
+        DataSource down = mock(DataSource.class);
+        when(down.getConnection()).thenThrow(new SQLException("connection refused"));
+        AtomicLong now = new AtomicLong(10_000);
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(down, 500, now::get);
+
+        assertEquals(Long.MAX_VALUE, monitor.status().lagMillis());
+        monitor.status();
+        verify(down, times(1)).getConnection();
+
+        now.addAndGet(500);
+        monitor.status();
+        verify(down, times(2)).getConnection();
+    }
+
+    /**
+     * Against a second database standing in for a replica ({@code P2PROTO_TEST_REPLICA_JDBC_URL},
+     * {@code _USER}, {@code _PASSWORD}): one that is not in recovery has no lag and nothing to replay.
+     */
+    @Test
+    void status_standInReplica_hasNoLag() {
+        String url = System.getenv("P2PROTO_TEST_REPLICA_JDBC_URL");
+        assumeTrue(url != null, "P2PROTO_TEST_REPLICA_JDBC_URL not set");
+        DataSource replica = new DriverManagerDataSource(url,
+                System.getenv("P2PROTO_TEST_REPLICA_USER"), System.getenv("P2PROTO_TEST_REPLICA_PASSWORD"));
+
+        ReplicaLagMonitor.Status status = new ReplicaLagMonitor(replica, 500).status();
+        assertEquals(0, status.lagMillis());
+        assertEquals(Long.MAX_VALUE, status.replayedLsn());
+    }
+}
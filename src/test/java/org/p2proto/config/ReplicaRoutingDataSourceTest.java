@@ -0,0 +1,108 @@
+package org.p2proto.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReplicaRoutingDataSourceTest {
+
+    private final ReplicaLagMonitor monitor = mock(ReplicaLagMonitor.class);
+    private final AtomicLong primaryLsn = new AtomicLong(1_000);
+    private final ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(
+            mock(DataSource.class), List.of(mock(DataSource.class)), List.of(monitor), 1_000, primaryLsn::get);
+
+    @AfterEach
+    void clear() {
+        TransactionSynchronizationManager.clear();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    private Object route() {
+        return routing.determineCurrentLookupKey();
+    }
+
+    @Test
+    void plainCall_goesToPrimary() {
+        when(monitor.status()).thenReturn(new ReplicaLagMonitor.Status(0, Long.MAX_VALUE));
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, route());
+    }
+
+    @Test
+    void readPath_goesToReplica_unlessLagging() {
+        when(monitor.status()).thenReturn(new ReplicaLagMonitor.Status(0, Long.MAX_VALUE));
+        assertEquals("replica-0", ReplicaRoutingDataSource.read(this::route));
+
+        when(monitor.status()).thenReturn(new ReplicaLagMonitor.Status(5_000, Long.MAX_VALUE));
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, ReplicaRoutingDataSource.read(this::route));
+    }
+
+    @Test
+    void readPath_insideReadWriteTransaction_staysOnPrimary() {
+        when(monitor.status()).thenReturn(new ReplicaLagMonitor.Status(0, Long.MAX_VALUE));
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, ReplicaRoutingDataSource.read(this::route));
+    }
+
+    @Test
+    void readOnlyTransaction_goesToReplica() {
+        when(monitor.status()).thenReturn(new ReplicaLagMonitor.Status(0, Long.MAX_VALUE));
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertEquals("replica-0", route());
+    }
+
+    @Test
+    void readYourWrites_sessionReadsPrimaryUntilReplicaReplayedTheWrite() {
+        RequestAttributes attributes = mock(RequestAttributes.class);
+        RequestContextHolder.setRequestAttributes(attributes);
+        when(attributes.getAttribute(ReplicaRoutingDataSource.LAST_WRITE_ATTRIBUTE, RequestAttributes.SCOPE_SESSION))
+                .thenReturn(2_000L);
+
+        // no lag by replay time, but the write's WAL has not arrived yet
+        when(monitor.status()).thenReturn(new ReplicaLagMonitor.Status(0, 1_999));
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, ReplicaRoutingDataSource.read(this::route));
+
+        when(monitor.status()).thenReturn(new ReplicaLagMonitor.Status(0, 2_000));
+        assertEquals("replica-0", ReplicaRoutingDataSource.read(this::route));
+    }
+
+    @Test
+    void readYourWrites_newWrite_resolvesPrimaryPositionOnNextRead() {
+        RequestAttributes attributes = mock(RequestAttributes.class);
+        RequestContextHolder.setRequestAttributes(attributes);
+        when(attributes.getAttribute(ReplicaRoutingDataSource.LAST_WRITE_ATTRIBUTE, RequestAttributes.SCOPE_SESSION))
+                .thenReturn(ReplicaRoutingDataSource.WRITE_UNRESOLVED);
+        primaryLsn.set(5_000);
+        when(monitor.status()).thenReturn(new ReplicaLagMonitor.Status(0, 4_000));
+
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, ReplicaRoutingDataSource.read(this::route));
+        verify(attributes).setAttribute(ReplicaRoutingDataSource.LAST_WRITE_ATTRIBUTE, 5_000L, RequestAttributes.SCOPE_SESSION);
+    }
+
+    @Test
+    void plainCallInRequest_marksSessionAsWritten() {
+        RequestAttributes attributes = mock(RequestAttributes.class);
+        RequestContextHolder.setRequestAttributes(attributes);
+
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, route()); // e.g. an autocommit save outside a transaction
+        verify(attributes).setAttribute(ReplicaRoutingDataSource.LAST_WRITE_ATTRIBUTE,
+                ReplicaRoutingDataSource.WRITE_UNRESOLVED, RequestAttributes.SCOPE_SESSION);
+    }
+
+    @Test
+    void pinned_overridesRouting() {
+        assertEquals("replica-0", ReplicaRoutingDataSource.pinned("replica-0", this::route));
+        assertEquals("replica-0", ReplicaRoutingDataSource.lastKey());
+    }
+}
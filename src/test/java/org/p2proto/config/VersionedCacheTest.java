@@ -0,0 +1,70 @@
+package org.p2proto.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VersionedCacheTest {
+
+    private final Cache target = new ConcurrentMapCache("tables");
+    private final VersionedCache cache = new VersionedCache(target);
+
+    @Test
+    void get_withLoader_storesLoadedValue() {
+        assertEquals("A", cache.get("a", () -> "A"));
+        assertEquals("A", cache.get("a", () -> fail("loaded twice")));
+        assertEquals("A", target.get("a", String.class));
+    }
+
+    @Test
+    void get_evictedWhileLoading_returnsButDoesNotStore() {
+        String value = cache.get("a", () -> {
+            cache.evict("a"); // the change commits while the old state is being read
+            return "old";
+        });
+
+        assertEquals("old", value);
+        assertNull(target.get("a"));
+        assertEquals("new", cache.get("a", () -> "new"));
+    }
+
+    @Test
+    void get_otherKeyEvictedWhileLoading_stillStores() {
+        cache.get("a", () -> {
+            cache.evict("b");
+            return "A";
+        });
+
+        assertEquals("A", target.get("a", String.class));
+    }
+
+    @Test
+    void putIfUnchanged_skipsKeysEvictedSinceSnapshot() {
+        long[] generations = cache.generations();
+        cache.evict("a");
+
+        assertFalse(cache.putIfUnchanged("a", "old", generations));
+        assertTrue(cache.putIfUnchanged("b", "B", generations));
+        assertNull(target.get("a"));
+        assertEquals("B", target.get("b", String.class));
+    }
+
+    @Test
+    void clear_skipsAllLoadsInFlight() {
+        long[] generations = cache.generations();
+        cache.clear();
+
+        assertFalse(cache.putIfUnchanged("a", "A", generations));
+    }
+
+    @Test
+    void unwrap_looksThroughL1() {
+        assertSame(cache, VersionedCache.unwrap(new L1Cache(cache, 2, Duration.ofSeconds(5))));
+        assertSame(cache, VersionedCache.unwrap(cache));
+        assertNull(VersionedCache.unwrap(target));
+    }
+}
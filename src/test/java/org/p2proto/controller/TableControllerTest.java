@@ -0,0 +1,49 @@
+package org.p2proto.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.p2proto.domain.DomainFactory;
+import org.p2proto.dto.ColumnMetaData;
+import org.p2proto.dto.TableMetadata;
+import org.p2proto.repository.CrudRepositoryRegistry;
+import org.p2proto.repository.TableMetadataCrudRepository;
+import org.p2proto.repository.table.TableCatalog;
+import org.p2proto.service.TableService;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.mockito.Mockito.*;
+
+class TableControllerTest {
+
+    private final TableService tableService = mock(TableService.class);
+    private final CrudRepositoryRegistry repositories = mock(CrudRepositoryRegistry.class);
+    private final HttpServletRequest request = mock(HttpServletRequest.class);
+    private final HttpServletResponse response = mock(HttpServletResponse.class);
+    private final TableController controller = new TableController(tableService, mock(TableCatalog.class),
+            repositories, request, new ObjectMapper());
+
+    @Test
+    void exportRecords_parallelRefused_answers503BeforeOpeningTheResponse() throws Exception {
+        ColumnMetaData pk = new ColumnMetaData("id", "id", DomainFactory.fromInternalName("AUTOINCREMENT"),
+                null, Collections.emptyMap());
+        TableMetadata items = TableMetadata.builder().id(UUID.randomUUID()).tableName("items")
+                .column(pk).primaryKeyMeta(pk).build();
+        TableMetadataCrudRepository repo = mock(TableMetadataCrudRepository.class);
+        when(repositories.forTable("items")).thenReturn(repo);
+        when(repo.supportsSlicing()).thenReturn(true);
+        when(repo.getMeta()).thenReturn(items);
+        when(tableService.admitParallelExport(4)).thenThrow(new RejectedExecutionException("Too many parallel exports"));
+
+        controller.exportRecords("items", null, "csv", 4, false, response);
+
+        verify(response).sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Too many parallel exports");
+        verify(response, never()).getOutputStream();
+        verifyNoMoreInteractions(response);
+        verify(tableService, never()).exportRecordsParallel(any(), any(), any(), any(), any(), anyBoolean(), any());
+    }
+}
@@ -0,0 +1,170 @@
+package org.p2proto.ddl;
+
+import liquibase.change.core.RawSQLChange;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.p2proto.domain.DomainFactory;
+import org.p2proto.dto.ColumnMetaData;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DDLExecutorTest {
+
+    private static final String SQL = "ALTER TABLE items ADD note VARCHAR(255)";
+    private static final String CREATE_INDEX = "CREATE INDEX CONCURRENTLY ix_items_summary ON items (summary)";
+    private static final String DROP_INDEX = "DROP INDEX CONCURRENTLY IF EXISTS ix_items_summary";
+
+    private final Connection connection = mock(Connection.class);
+    private final Statement stmt = mock(Statement.class);
+    private final Savepoint savepoint = mock(Savepoint.class);
+
+    @Test
+    void executeWithRetry_lockTimeout_rollsBackToSavepointAndRetries() throws SQLException {
+        when(connection.setSavepoint()).thenReturn(savepoint);
+        when(stmt.execute(SQL))
+                .thenThrow(new SQLException("canceling statement due to lock timeout", DDLExecutor.LOCK_NOT_AVAILABLE))
+                .thenReturn(false);
+
+        DDLExecutor.executeWithRetry(connection, stmt, List.of(SQL), 3, 0);
+
+        verify(stmt, times(2)).execute(SQL);
+        verify(connection).rollback(savepoint);
+        verify(connection).releaseSavepoint(savepoint);
+    }
+
+    @Test
+    void executeWithRetry_lockTimeoutEveryAttempt_givesUpAfterMaxAttempts() throws SQLException {
+        when(connection.setSavepoint()).thenReturn(savepoint);
+        when(stmt.execute(SQL)).thenThrow(new SQLException("lock timeout", DDLExecutor.LOCK_NOT_AVAILABLE));
+
+        SQLException e = assertThrows(SQLException.class,
+                () -> DDLExecutor.executeWithRetry(connection, stmt, List.of(SQL), 3, 0));
+
+        assertEquals(DDLExecutor.LOCK_NOT_AVAILABLE, e.getSQLState());
+        verify(stmt, times(3)).execute(SQL);
+    }
+
+    @Test
+    void executeWithRetry_statementTimeout_isNotRetried() throws SQLException {
+        when(connection.setSavepoint()).thenReturn(savepoint);
+        when(stmt.execute(SQL)).thenThrow(new SQLException("statement timeout", "57014"));
+
+        assertThrows(SQLException.class, () -> DDLExecutor.executeWithRetry(connection, stmt, List.of(SQL), 3, 0));
+
+        verify(stmt, times(1)).execute(SQL);
+    }
+
+    @Test
+    void executeOnlineWithRetry_deadlock_cleansUpBeforeRetrying() throws SQLException {
+        when(stmt.execute(CREATE_INDEX))
+                .thenThrow(new SQLException("deadlock detected", DDLExecutor.DEADLOCK_DETECTED))
+                .thenReturn(false);
+
+        DDLExecutor.executeOnlineWithRetry(stmt, List.of(CREATE_INDEX), List.of(DROP_INDEX), 3, 0);
+
+        InOrder order = inOrder(stmt);
+        order.verify(stmt).execute(CREATE_INDEX);
+        order.verify(stmt).execute(DROP_INDEX);
+        order.verify(stmt).execute(CREATE_INDEX);
+    }
+
+    @Test
+    void executeOnlineWithRetry_failedCleanup_isRetriedToo() throws SQLException {
+        when(stmt.execute(CREATE_INDEX))
+                .thenThrow(new SQLException("deadlock detected", DDLExecutor.DEADLOCK_DETECTED))
+                .thenReturn(false);
+        when(stmt.execute(DROP_INDEX))
+                .thenThrow(new SQLException("deadlock detected", DDLExecutor.DEADLOCK_DETECTED))
+                .thenReturn(false);
+
+        DDLExecutor.executeOnlineWithRetry(stmt, List.of(CREATE_INDEX), List.of(DROP_INDEX), 3, 0);
+
+        verify(stmt, times(2)).execute(CREATE_INDEX);
+        verify(stmt, times(2)).execute(DROP_INDEX);
+    }
+
+    @Test
+    void executeOnlineWithRetry_outOfAttempts_cleansUpAndKeepsOriginalError() throws SQLException {
+        SQLException deadlock = new SQLException("deadlock detected", DDLExecutor.DEADLOCK_DETECTED);
+        SQLException dropFailed = new SQLException("drop failed", "XX000");
+        when(stmt.execute(CREATE_INDEX)).thenThrow(deadlock);
+        when(stmt.execute(DROP_INDEX)).thenReturn(false).thenThrow(dropFailed);
+
+        SQLException e = assertThrows(SQLException.class,
+                () -> DDLExecutor.executeOnlineWithRetry(stmt, List.of(CREATE_INDEX), List.of(DROP_INDEX), 2, 0));
+
+        assertSame(deadlock, e);
+        assertArrayEquals(new Throwable[]{dropFailed}, e.getSuppressed());
+        verify(stmt, never()).execute(startsWith("SET"));
+    }
+
+    @Test
+    void executeOnlineWithRetry_uniqueViolation_dropsInvalidIndexWithoutRetrying() throws SQLException {
+        when(stmt.execute(CREATE_INDEX)).thenThrow(new SQLException("could not create unique index", "23505"));
+
+        SQLException e = assertThrows(SQLException.class,
+                () -> DDLExecutor.executeOnlineWithRetry(stmt, List.of(CREATE_INDEX), List.of(DROP_INDEX), 3, 0));
+
+        assertEquals("23505", e.getSQLState());
+        verify(stmt, times(1)).execute(CREATE_INDEX);
+        verify(stmt, times(1)).execute(DROP_INDEX);
+    }
+
+    @Test
+    void executeOnlineWithRetry_existingIndex_isNotDropped() throws SQLException {
+        when(stmt.execute(CREATE_INDEX)).thenThrow(new SQLException("relation already exists", DDLExecutor.DUPLICATE_TABLE));
+
+        assertThrows(SQLException.class,
+                () -> DDLExecutor.executeOnlineWithRetry(stmt, List.of(CREATE_INDEX), List.of(DROP_INDEX), 3, 0));
+
+        verify(stmt, never()).execute(DROP_INDEX);
+    }
+
+    @Test
+    void backoff_staysWithinCap() {
+        for (int attempt = 1; attempt < 40; attempt++) {
+            long wait = DDLExecutor.backoff(attempt, 200);
+            assertTrue(wait >= 0 && wait <= 5_000, "attempt " + attempt + ": " + wait);
+        }
+    }
+
+    @Test
+    void createIndexCommand_runsConcurrentlyOutsideTransaction() {
+        CreateIndexCommand command = new CreateIndexCommand("items", List.of("summary", "created_at"), true);
+
+        assertFalse(command.isTransactional());
+        assertEquals("ux_items_summary_created_at", command.getIndexName());
+        assertEquals("CREATE UNIQUE INDEX CONCURRENTLY ux_items_summary_created_at ON items (summary, created_at)",
+                ((RawSQLChange) command.getChange()).getSql());
+        assertEquals("DROP INDEX CONCURRENTLY IF EXISTS ux_items_summary_created_at",
+                ((RawSQLChange) command.getCleanupChange()).getSql());
+    }
+
+    @Test
+    void createIndexCommand_longName_isTruncatedToIdentifierLimit() {
+        String name = CreateIndexCommand.indexName("t".repeat(50), List.of("c".repeat(30)), false);
+
+        assertEquals(CreateIndexCommand.MAX_IDENTIFIER_LENGTH, name.length());
+        assertNotEquals(name, CreateIndexCommand.indexName("t".repeat(50), List.of("c".repeat(31)), false));
+    }
+
+    @Test
+    void addColumnCommand_rejectsChangesThatRewriteOrLockTheTable() {
+        ColumnMetaData serial = new ColumnMetaData("seq", "Seq", DomainFactory.fromInternalName("AUTOINCREMENT"), null, Map.of());
+        ColumnMetaData unique = new ColumnMetaData("code", "Code", DomainFactory.fromInternalName("TEXT"), null,
+                Map.of(ColumnMetaData.UNIQUE_KEY, "true"));
+        ColumnMetaData plain = new ColumnMetaData("note", "Note", DomainFactory.fromInternalName("TEXT"), null, Map.of());
+
+        assertThrows(IllegalArgumentException.class, () -> new AddColumnCommand("items", serial));
+        assertThrows(IllegalArgumentException.class, () -> new AddColumnCommand("items", unique));
+        assertTrue(new AddColumnCommand("items", plain).isTransactional());
+    }
+}
@@ -0,0 +1,54 @@
+package org.p2proto.repository;
+
+import org.junit.jupiter.api.Test;
+import org.p2proto.dto.TableMetadata;
+import org.p2proto.repository.table.TableCatalog;
+import org.p2proto.repository.table.TableMetadataChangedEvent;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class CrudRepositoryRegistryTest {
+
+    private final CrudRepositoryRegistry registry =
+            new CrudRepositoryRegistry(mock(JdbcTemplate.class), mock(TableCatalog.class));
+
+    private static TableMetadata meta(UUID id) {
+        TableMetadata base = RecordRowMapperTest.buildTableMetadata();
+        return TableMetadata.builder()
+                .id(id)
+                .tableName(base.getTableName())
+                .columns(base.getColumns())
+                .primaryKeyMeta(base.getPrimaryKeyMeta())
+                .build();
+    }
+
+    @Test
+    void get_sameMetadata_reusesRepository() {
+        TableMetadata meta = meta(UUID.randomUUID());
+        assertSame(registry.get(meta), registry.get(meta));
+    }
+
+    @Test
+    void get_reloadedMetadata_rebuildsRepository() {
+        UUID id = UUID.randomUUID();
+        TableMetadataCrudRepository first = registry.get(meta(id));
+        TableMetadata reloaded = meta(id);
+
+        TableMetadataCrudRepository second = registry.get(reloaded);
+        assertNotSame(first, second);
+        assertSame(reloaded, second.getMeta());
+    }
+
+    @Test
+    void metadataChanged_dropsRepository() {
+        TableMetadata meta = meta(UUID.randomUUID());
+        TableMetadataCrudRepository first = registry.get(meta);
+
+        registry.onMetadataChanged(new TableMetadataChangedEvent(meta.getId()));
+        assertNotSame(first, registry.get(meta));
+    }
+}
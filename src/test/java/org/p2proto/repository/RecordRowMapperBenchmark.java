@@ -0,0 +1,106 @@
+package org.p2proto.repository;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.p2proto.dto.TableMetadata;
+import org.springframework.jdbc.core.ColumnMapRowMapper;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.RowMapperResultSetExtractor;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Throughput and allocation of {@link RecordRowMapper} against Spring's {@link ColumnMapRowMapper}
+ * on 100k in-memory rows, i.e. mapping cost only, without driver or network.
+ * Run with {@code ./gradlew benchmark}; results go to stdout.
+ */
+@Tag("benchmark")
+class RecordRowMapperBenchmark {
+
+    private static final int ROWS = 100_000;
+    private static final int WARMUP_PASSES = 5;
+    private static final int MEASURED_PASSES = 10;
+
+    @Test
+    void compare_100kRows() throws SQLException {
+        TableMetadata meta = RecordRowMapperTest.buildTableMetadata();
+        List<Object[]> rows = new ArrayList<>(ROWS);
+        Timestamp ts = new Timestamp(System.currentTimeMillis());
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(new Object[]{i, UUID.randomUUID(), "summary " + i, i * 0.5, i % 2 == 0, ts});
+        }
+        run("ColumnMapRowMapper", new ColumnMapRowMapper(), rows);
+        run("RecordRowMapper", RecordRowMapper.of(meta, meta.getColumns()), rows);
+    }
+
+    private static void run(String name, RowMapper<Map<String, Object>> mapper, List<Object[]> rows)
+            throws SQLException {
+        RowMapperResultSetExtractor<Map<String, Object>> extractor = new RowMapperResultSetExtractor<>(mapper, ROWS);
+        for (int i = 0; i < WARMUP_PASSES; i++) {
+            assertEquals(ROWS, extractor.extractData(resultSet(rows)).size());
+        }
+
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long bytesBefore = mx.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_PASSES; i++) {
+            extractor.extractData(resultSet(rows));
+        }
+        long nanos = System.nanoTime() - start;
+        long bytes = mx.getThreadAllocatedBytes(thread) - bytesBefore;
+
+        long mapped = (long) ROWS * MEASURED_PASSES;
+        System.out.printf("%-20s %,12.0f rows/s %,8d bytes/row%n",
+                name, mapped / (nanos / 1e9), bytes / mapped);
+    }
+
+    /**
+     * Forward-only result set over the rows, with just the calls the two mappers make.
+     * A plain proxy rather than a mock: mock bookkeeping per call would outweigh the mapping cost.
+     */
+    private static ResultSet resultSet(List<Object[]> rows) {
+        String[] labels = RecordRowMapperTest.LABELS;
+        ResultSetMetaData md = (ResultSetMetaData) Proxy.newProxyInstance(
+                ResultSetMetaData.class.getClassLoader(), new Class<?>[]{ResultSetMetaData.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getColumnCount" -> labels.length;
+                    case "getColumnLabel", "getColumnName" -> labels[(Integer) args[0] - 1];
+                    case "getColumnClassName" -> Object.class.getName();
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        int[] row = {-1};
+        boolean[] lastNull = {false};
+        return (ResultSet) Proxy.newProxyInstance(
+                ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "next": return ++row[0] < rows.size();
+                        case "getMetaData": return md;
+                        case "wasNull": return lastNull[0];
+                        default:
+                    }
+                    Object v = rows.get(row[0])[(Integer) args[0] - 1];
+                    lastNull[0] = (v == null);
+                    return switch (method.getName()) {
+                        case "getInt" -> v == null ? 0 : ((Number) v).intValue();
+                        case "getDouble" -> v == null ? 0.0 : ((Number) v).doubleValue();
+                        case "getBoolean" -> v != null && (Boolean) v;
+                        case "getString" -> v == null ? null : v.toString();
+                        case "getObject", "getTimestamp", "getDate" -> v;
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    };
+                });
+    }
+}
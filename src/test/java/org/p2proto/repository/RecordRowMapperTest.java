@@ -0,0 +1,103 @@
+package org.p2proto.repository;
+
+import org.junit.jupiter.api.Test;
+import org.p2proto.domain.DomainFactory;
+import org.p2proto.domain.FormulaDomain;
+import org.p2proto.dto.ColumnMetaData;
+import org.p2proto.dto.TableMetadata;
+import org.springframework.jdbc.core.RowMapperResultSetExtractor;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RecordRowMapperTest {
+
+    static final String[] LABELS = {"id", "uid", "summary", "score", "active", "created_at"};
+
+    static ColumnMetaData column(String name, String domain) {
+        return new ColumnMetaData(name, name, DomainFactory.fromInternalName(domain), null, Collections.emptyMap());
+    }
+
+    /**
+     * Table with one column per mapped domain: id (PK), uid, summary, score, active, created_at.
+     */
+    static TableMetadata buildTableMetadata() {
+        ColumnMetaData id = column("id", "AUTOINCREMENT");
+        return TableMetadata.builder()
+                .tableName("items")
+                .column(id)
+                .column(column("uid", "UUID"))
+                .column(column("summary", "TEXT"))
+                .column(column("score", "FLOAT"))
+                .column(column("active", "BOOLEAN"))
+                .column(column("created_at", "DATETIME"))
+                .primaryKeyMeta(id)
+                .build();
+    }
+
+    @Test
+    void mapRow_readsSlotsByDomain() throws SQLException {
+        TableMetadata meta = buildTableMetadata();
+        UUID uid = UUID.randomUUID();
+        Timestamp ts = Timestamp.valueOf("2025-01-02 03:04:05");
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.next()).thenReturn(true, true, false);
+        when(rs.getInt(1)).thenReturn(7, 8);
+        when(rs.getObject(2, UUID.class)).thenReturn(uid, (UUID) null);
+        when(rs.getString(3)).thenReturn("hello", (String) null);
+        when(rs.getDouble(4)).thenReturn(1.5, 0.0);
+        when(rs.getBoolean(5)).thenReturn(true, false);
+        when(rs.getTimestamp(6)).thenReturn(ts, (Timestamp) null);
+        // asked after the int, double and boolean reads of each row
+        when(rs.wasNull()).thenReturn(false, false, false, false, true, true);
+
+        List<Map<String, Object>> rows = new RowMapperResultSetExtractor<>(
+                RecordRowMapper.of(meta, meta.getColumns())).extractData(rs);
+
+        Map<String, Object> first = rows.get(0);
+        assertEquals(7, first.get("id"));
+        assertEquals(uid, first.get("uid"));
+        assertEquals("hello", first.get("summary"));
+        assertEquals(1.5, first.get("score"));
+        assertEquals(Boolean.TRUE, first.get("active"));
+        assertEquals(ts, first.get("created_at"));
+        assertEquals(List.of(LABELS), new ArrayList<>(first.keySet()));
+
+        Map<String, Object> second = rows.get(1);
+        assertTrue(second.containsKey("score"));
+        assertNull(second.get("score"));
+        assertNull(second.get("active"));
+        assertFalse(second.containsKey("nope"));
+    }
+
+    @Test
+    void mapRow_formulaColumn_keepsTheExpressionType() throws SQLException {
+        ColumnMetaData id = column("id", "AUTOINCREMENT");
+        ColumnMetaData doubled = new ColumnMetaData("doubled", "doubled", DomainFactory.fromInternalName("FORMULA"),
+                null, Map.of(FormulaDomain.FORMULA_KEY, "id * 2"));
+        TableMetadata meta = TableMetadata.builder()
+                .tableName("items").column(id).column(doubled).primaryKeyMeta(id).build();
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getInt(1)).thenReturn(21);
+        when(rs.getObject(2)).thenReturn(42);
+
+        Map<String, Object> row = RecordRowMapper.of(meta, meta.getColumns()).mapRow(rs, 0);
+
+        assertEquals(42, row.get("doubled"));
+        verify(rs, never()).getString(2);
+    }
+
+    @Test
+    void of_sameMetadataAndProjection_reusesMapper() {
+        TableMetadata meta = buildTableMetadata();
+        List<ColumnMetaData> projection = meta.getProjection(List.of("summary"));
+
+        assertSame(RecordRowMapper.of(meta, projection), RecordRowMapper.of(meta, projection));
+        assertNotSame(RecordRowMapper.of(meta, projection), RecordRowMapper.of(buildTableMetadata(), projection));
+    }
+}
@@ -0,0 +1,149 @@
+package org.p2proto.repository;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.p2proto.domain.DomainFactory;
+import org.p2proto.dto.ColumnDefaultHolder;
+import org.p2proto.dto.ColumnMetaData;
+import org.p2proto.dto.TableMetadata;
+import org.p2proto.sql.SqlLiterals;
+import org.p2proto.sql.WhereRenderer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.sql.Statement;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class TableMetadataCrudRepositoryTest {
+
+    @Test
+    void insertAll_groupsRowsByColumnSet() {
+        NamedParameterJdbcTemplate jdbc = mock(NamedParameterJdbcTemplate.class);
+        when(jdbc.batchUpdate(anyString(), any(SqlParameterSource[].class))).thenAnswer(inv -> {
+            int[] counts = new int[((SqlParameterSource[]) inv.getArgument(1)).length];
+            Arrays.fill(counts, Statement.SUCCESS_NO_INFO);
+            return counts;
+        });
+        TableMetadata meta = RecordRowMapperTest.buildTableMetadata();
+        TableMetadataCrudRepository repo = new TableMetadataCrudRepository(jdbc, meta);
+
+        int inserted = repo.insertAll(List.of(
+                Map.of("summary", "a", "score", 1.0),
+                Map.of("summary", "b"),
+                Map.of("score", 2.0, "summary", "c")
+        ));
+
+        assertEquals(3, inserted);
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<SqlParameterSource[]> params = ArgumentCaptor.forClass(SqlParameterSource[].class);
+        verify(jdbc, times(2)).batchUpdate(sql.capture(), params.capture());
+        assertEquals("INSERT INTO items (summary, score) VALUES (:summary, :score)", sql.getAllValues().get(0));
+        assertEquals(2, params.getAllValues().get(0).length);
+        assertEquals("INSERT INTO items (summary) VALUES (:summary)", sql.getAllValues().get(1));
+        assertEquals(1, params.getAllValues().get(1).length);
+    }
+
+    @Test
+    void upsertAll_appliesDefaultsPerBranch() {
+        NamedParameterJdbcTemplate jdbc = mock(NamedParameterJdbcTemplate.class);
+        when(jdbc.update(anyString(), any(SqlParameterSource.class))).thenReturn(2);
+        ColumnMetaData id = RecordRowMapperTest.column("id", "AUTOINCREMENT");
+        TableMetadata meta = TableMetadata.builder()
+                .tableName("items")
+                .column(id)
+                .column(new ColumnMetaData("code", "code", DomainFactory.fromInternalName("TEXT"), null,
+                        Map.of(ColumnMetaData.UNIQUE_KEY, "true")))
+                .column(RecordRowMapperTest.column("summary", "TEXT"))
+                .column(new ColumnMetaData("created_at", "created_at", DomainFactory.fromInternalName("DATETIME"),
+                        now(ColumnDefaultHolder.TriggerEvent.ON_CREATE), Map.of()))
+                .column(new ColumnMetaData("updated_at", "updated_at", DomainFactory.fromInternalName("DATETIME"),
+                        now(ColumnDefaultHolder.TriggerEvent.ON_UPDATE), Map.of()))
+                .primaryKeyMeta(id)
+                .build();
+        TableMetadataCrudRepository repo = new TableMetadataCrudRepository(jdbc, meta);
+
+        assertEquals(2, repo.upsertAll("code", List.of(
+                Map.of("code", "a", "summary", "first"),
+                Map.of("code", "b", "summary", "second"),
+                Map.of("code", "a", "summary", "again")
+        )));
+
+        ArgumentCaptor<SqlParameterSource> params = ArgumentCaptor.forClass(SqlParameterSource.class);
+        verify(jdbc).update(eq("INSERT INTO items (code, summary, created_at) "
+                + "VALUES (:r0_code, :r0_summary, :r0_created_at), (:r1_code, :r1_summary, :r1_created_at) "
+                + "ON CONFLICT (code) DO UPDATE SET summary = EXCLUDED.summary, updated_at = :u_updated_at"),
+                params.capture());
+        assertEquals("again", params.getValue().getValue("r0_summary"));
+        assertNotNull(params.getValue().getValue("u_updated_at"));
+        assertThrows(IllegalArgumentException.class, () -> repo.upsertAll("summary", List.of(Map.of("summary", "x"))));
+        verify(jdbc, never()).queryForList(anyString(), any(SqlParameterSource.class));
+    }
+
+    @Test
+    void upsertAll_onAutoincrementPk_advancesSequence() {
+        NamedParameterJdbcTemplate jdbc = mock(NamedParameterJdbcTemplate.class);
+        when(jdbc.update(anyString(), any(SqlParameterSource.class))).thenReturn(1);
+        TableMetadataCrudRepository repo =
+                new TableMetadataCrudRepository(jdbc, RecordRowMapperTest.buildTableMetadata());
+
+        repo.upsertAll(List.of(Map.of("id", 500, "summary", "x")));
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbc).update(sql.capture(), any(SqlParameterSource.class));
+        assertTrue(sql.getValue().startsWith("INSERT INTO items (summary, id)"), sql.getValue());
+        verify(jdbc).queryForList(startsWith("SELECT setval("), any(SqlParameterSource.class));
+    }
+
+    private static ColumnDefaultHolder now(ColumnDefaultHolder.TriggerEvent trigger) {
+        return ColumnDefaultHolder.builder()
+                .valueType(ColumnDefaultHolder.DefaultValueType.FORMULA)
+                .value("CURRENT_TIMESTAMP")
+                .executionContext(ColumnDefaultHolder.ExecutionContext.SERVER_SIDE)
+                .triggerEvent(trigger)
+                .build();
+    }
+
+    @Test
+    void updateAll_bindsPrimaryKeyAndSkipsEmptyRows() {
+        NamedParameterJdbcTemplate jdbc = mock(NamedParameterJdbcTemplate.class);
+        when(jdbc.batchUpdate(anyString(), any(SqlParameterSource[].class))).thenReturn(new int[]{1, 1});
+        TableMetadataCrudRepository repo =
+                new TableMetadataCrudRepository(jdbc, RecordRowMapperTest.buildTableMetadata());
+
+        Map<Object, Map<String, Object>> rows = new LinkedHashMap<>();
+        rows.put(1, Map.of("summary", "a"));
+        rows.put(2, Map.of("id", 2));
+        rows.put(3, Map.of("summary", "c"));
+
+        assertEquals(2, repo.updateAll(rows));
+        ArgumentCaptor<SqlParameterSource[]> params = ArgumentCaptor.forClass(SqlParameterSource[].class);
+        verify(jdbc).batchUpdate(eq("UPDATE items SET summary = :summary WHERE id = :_pk"), params.capture());
+        assertEquals(3, params.getValue()[1].getValue("_pk"));
+    }
+
+    @Test
+    void primaryKeySlices_splitsIntegerRange() {
+        NamedParameterJdbcTemplate jdbc = mock(NamedParameterJdbcTemplate.class);
+        JdbcTemplate template = mock(JdbcTemplate.class);
+        when(jdbc.getJdbcTemplate()).thenReturn(template);
+        when(template.queryForMap("SELECT min(id) AS lo, max(id) AS hi FROM items")).thenReturn(Map.of("lo", 1, "hi", 100));
+        TableMetadataCrudRepository repo =
+                new TableMetadataCrudRepository(jdbc, RecordRowMapperTest.buildTableMetadata());
+
+        List<String> where = repo.primaryKeySlices(4).stream()
+                .map(c -> SqlLiterals.inline(new WhereRenderer(repo.getMeta()).render(c)))
+                .toList();
+
+        assertEquals(List.of(
+                "WHERE id < 26",
+                "WHERE (id >= 26 AND id < 51)",
+                "WHERE (id >= 51 AND id < 76)",
+                "WHERE id >= 76"), where);
+    }
+}
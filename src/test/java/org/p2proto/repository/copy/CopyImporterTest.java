@@ -0,0 +1,98 @@
+package org.p2proto.repository.copy;
+
+import org.junit.jupiter.api.Test;
+import org.p2proto.domain.DomainFactory;
+import org.p2proto.dto.ColumnMetaData;
+import org.p2proto.dto.ImportResult;
+import org.p2proto.dto.TableMetadata;
+import org.p2proto.repository.TableMetadataCrudRepository;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CopyImporterTest {
+
+    @Test
+    void run_recordWithOtherColumns_isRejected() throws SQLException, IOException {
+        CopyManager copy = mock(CopyManager.class);
+        CopyIn in = mock(CopyIn.class);
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        when(copy.copyIn(anyString())).thenReturn(in);
+        doAnswer(inv -> {
+            written.write((byte[]) inv.getArgument(0), inv.getArgument(1), inv.getArgument(2));
+            return null;
+        }).when(in).writeToCopy(any(byte[].class), anyInt(), anyInt());
+        when(in.endCopy()).thenReturn(2L);
+        TableMetadataCrudRepository repo = new TableMetadataCrudRepository(mock(NamedParameterJdbcTemplate.class), items());
+
+        Map<String, Object> explicitNull = new LinkedHashMap<>();
+        explicitNull.put("summary", "c");
+        explicitNull.put("score", null);
+        ImportResult result = new CopyImporter(repo, 10).run(copy, reader(List.of(
+                Map.of("summary", "a", "score", "1.5"),
+                Map.of("summary", "b", "active", "true"),   // different set, same size
+                Map.of("summary", "x"),                      // score missing
+                explicitNull
+        )));
+
+        verify(copy).copyIn("COPY items (summary, score) FROM STDIN (FORMAT csv)");
+        assertEquals("\"a\",\"1.5\"\n\"c\",\n", written.toString());
+        assertEquals(2, result.imported());
+        assertEquals(2, result.rejected());
+        assertEquals(List.of(2L, 3L), result.errors().stream().map(ImportResult.RowError::line).toList());
+        assertEquals("Column not in the import: active", result.errors().get(0).message());
+        assertEquals("Missing column: score", result.errors().get(1).message());
+    }
+
+    private static TableMetadata items() {
+        ColumnMetaData id = column("id", "AUTOINCREMENT");
+        return TableMetadata.builder()
+                .tableName("items")
+                .column(id)
+                .column(column("summary", "TEXT"))
+                .column(column("score", "FLOAT"))
+                .column(column("active", "BOOLEAN"))
+                .primaryKeyMeta(id)
+                .build();
+    }
+
+    private static ColumnMetaData column(String name, String domain) {
+        return new ColumnMetaData(name, name, DomainFactory.fromInternalName(domain), null, Map.of());
+    }
+
+    private static RecordReader reader(List<Map<String, Object>> records) {
+        Iterator<Map<String, Object>> it = new ArrayList<>(records).iterator();
+        return new RecordReader() {
+            private long line;
+
+            @Override
+            public Map<String, Object> next() {
+                if (!it.hasNext()) return null;
+                line++;
+                return it.next();
+            }
+
+            @Override
+            public long line() {
+                return line;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
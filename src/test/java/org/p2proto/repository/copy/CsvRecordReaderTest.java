@@ -0,0 +1,38 @@
+package org.p2proto.repository.copy;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvRecordReaderTest {
+
+    @Test
+    void next_readsQuotedFieldsAndTracksLines() throws IOException {
+        String csv = "name, note\r\n"
+                + "alice,\"says \"\"hi\"\"\"\r\n"
+                + "\n"
+                + "bob,\"two\nlines\"\n"
+                + "carol,\n";
+        CsvRecordReader reader = new CsvRecordReader(new StringReader(csv));
+
+        assertEquals(Map.of("name", "alice", "note", "says \"hi\""), reader.next());
+        assertEquals(2, reader.line());
+        assertEquals(Map.of("name", "bob", "note", "two\nlines"), reader.next());
+        assertEquals(4, reader.line());
+        assertEquals(Map.of("name", "carol", "note", ""), reader.next());
+        assertEquals(6, reader.line());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void next_wrongFieldCount_rejectsRecordOnly() throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(new StringReader("a,b\n1\n2,3\n"));
+
+        assertThrows(IllegalArgumentException.class, reader::next);
+        assertEquals(Map.of("a", "2", "b", "3"), reader.next());
+    }
+}
@@ -0,0 +1,47 @@
+package org.p2proto.repository.copy;
+
+import com.zaxxer.hikari.HikariConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ParallelExporterTest {
+
+    private final ParallelExporter exporter = new ParallelExporter(mock(JdbcTemplate.class), pool(8));
+
+    private static HikariConfig pool(int size) {
+        HikariConfig config = new HikariConfig();
+        config.setMaximumPoolSize(size);
+        return config;
+    }
+
+    @AfterEach
+    void stop() {
+        exporter.destroy();
+    }
+
+    @Test
+    void admit_pastSliceConnectionLimit_isRefused() {
+        try (ParallelExporter.Admission first = exporter.admit(3)) {
+            assertEquals(3, first.getSlices());
+            assertThrows(RejectedExecutionException.class, () -> exporter.admit(2));
+        }
+    }
+
+    @Test
+    void admit_clampsToLimitAndCloseGivesConnectionsBack() {
+        ParallelExporter.Admission all = exporter.admit(100);
+        assertEquals(ParallelExporter.sliceConnectionLimit(8), all.getSlices());
+        all.close();
+        all.close(); // only once
+
+        try (ParallelExporter.Admission again = exporter.admit(4)) {
+            assertEquals(4, again.getSlices());
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package org.p2proto.repository.table;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetadataChangeChannelTest {
+
+    @Test
+    void parse_readsTableVersionAndNode() {
+        UUID id = UUID.randomUUID();
+        MetadataChangeChannel.Change change =
+                MetadataChangeChannel.Change.parse(id + ":4711:" + MetadataChangeChannel.NODE_ID);
+
+        assertEquals(id, change.tableId());
+        assertEquals(4711L, change.version());
+        assertEquals(MetadataChangeChannel.NODE_ID, change.node());
+    }
+
+    @Test
+    void parse_rejectsMalformedPayload() {
+        assertThrows(IllegalArgumentException.class, () -> MetadataChangeChannel.Change.parse("nope"));
+        assertThrows(IllegalArgumentException.class, () -> MetadataChangeChannel.Change.parse("x:1:n"));
+    }
+}
@@ -0,0 +1,38 @@
+package org.p2proto.repository.table;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.UUID;
+
+import static org.mockito.Mockito.*;
+
+class TableCacheEvictorTest {
+
+    private final Cache tables = mock(Cache.class);
+    private final Cache summaries = mock(Cache.class);
+    private final CacheManager cacheManager = mock(CacheManager.class);
+
+    @Test
+    void onMetadataChanged_evictsTableAndSummariesOnly() {
+        when(cacheManager.getCache(TableRepository.CACHE_NAME)).thenReturn(tables);
+        when(cacheManager.getCache(TableRepository.SUMMARY_CACHE_NAME)).thenReturn(summaries);
+        UUID id = UUID.randomUUID();
+
+        new TableCacheEvictor(cacheManager).onMetadataChanged(new TableMetadataChangedEvent(id));
+
+        verify(tables).evict(id);
+        verify(summaries).evict(TableRepository.LOGICAL_NAME_TO_ID_KEY);
+        verify(summaries).evict(TableRepository.ALL_TABLES_KEY);
+        verifyNoMoreInteractions(tables, summaries);
+    }
+
+    @Test
+    void onMetadataChanged_withoutCaches_doesNothing() {
+        new TableCacheEvictor(cacheManager).onMetadataChanged(new TableMetadataChangedEvent(UUID.randomUUID()));
+
+        verify(cacheManager).getCache(TableRepository.CACHE_NAME);
+        verify(cacheManager).getCache(TableRepository.SUMMARY_CACHE_NAME);
+    }
+}
@@ -0,0 +1,176 @@
+package org.p2proto.repository.table;
+
+import org.junit.jupiter.api.Test;
+import org.p2proto.domain.DomainFactory;
+import org.p2proto.dto.ColumnMetaData;
+import org.p2proto.dto.TableMetadata;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TableCatalogTest {
+
+    private final TableRepository tableRepository = mock(TableRepository.class);
+    private final TableCatalog catalog = new TableCatalog(tableRepository);
+
+    private static TableMetadata table(UUID id, String name) {
+        ColumnMetaData pk = new ColumnMetaData("id", "id", DomainFactory.fromInternalName("AUTOINCREMENT"),
+                null, Collections.emptyMap());
+        return TableMetadata.builder().id(id).tableName(name).column(pk).primaryKeyMeta(pk).build();
+    }
+
+    @Test
+    void findByName_loadsWholeCatalogOnce() {
+        TableMetadata items = table(UUID.randomUUID(), "items");
+        when(tableRepository.findAllMetadata()).thenReturn(Map.of(items.getId(), items));
+
+        assertSame(items, catalog.findByName("items"));
+        assertSame(items, catalog.findByName("items"));
+        verify(tableRepository, times(1)).findAllMetadata();
+        verify(tableRepository, never()).findByLogicalName(any());
+    }
+
+    @Test
+    void findByName_changeDuringFullLoad_leavesChangedTableOut() {
+        UUID id = UUID.randomUUID();
+        TableMetadata stale = table(id, "items");
+        TableMetadata fresh = table(id, "items");
+        TableMetadata other = table(UUID.randomUUID(), "other");
+        when(tableRepository.findAllMetadata()).thenAnswer(inv -> {
+            catalog.invalidate(id); // a metadata change commits while the catalog is being read
+            return Map.of(id, stale, other.getId(), other);
+        });
+        when(tableRepository.findByLogicalName("items")).thenReturn(fresh);
+
+        assertSame(other, catalog.findByName("other"));
+        assertSame(fresh, catalog.findByName("items"));
+        verify(tableRepository, times(1)).findAllMetadata();
+    }
+
+    @Test
+    void publishAll_afterInvalidateAll_publishesNothing() {
+        long mark = catalog.loadMark();
+        catalog.invalidateAll();
+
+        assertFalse(catalog.publishAll(List.of(table(UUID.randomUUID(), "items")), mark));
+    }
+
+    @Test
+    void findByName_missingName_loadsSingleTable() {
+        catalog.publishAll(List.of(), catalog.loadMark());
+        TableMetadata added = table(UUID.randomUUID(), "added");
+        when(tableRepository.findByLogicalName("added")).thenReturn(added);
+
+        assertSame(added, catalog.findByName("added"));
+        assertSame(added, catalog.findByName("added"));
+        assertNull(catalog.findByName("nope"));
+        verify(tableRepository, times(1)).findByLogicalName("added");
+    }
+
+    @Test
+    void metadataChanged_dropsTableSoNextLookupReloads() {
+        UUID id = UUID.randomUUID();
+        TableMetadata before = table(id, "items");
+        TableMetadata after = table(id, "items");
+        catalog.publishAll(List.of(before), catalog.loadMark());
+        when(tableRepository.findByLogicalName("items")).thenReturn(after);
+
+        catalog.onMetadataChanged(new TableMetadataChangedEvent(id));
+        assertSame(after, catalog.findByName("items"));
+    }
+
+    @Test
+    void findByName_changeDuringLoad_doesNotPublishLoadedState() {
+        UUID id = UUID.randomUUID();
+        catalog.publishAll(List.of(), catalog.loadMark());
+        TableMetadata stale = table(id, "items");
+        TableMetadata fresh = table(id, "items");
+        when(tableRepository.findByLogicalName("items")).thenAnswer(inv -> {
+            catalog.invalidate(id); // a metadata change commits while the old state is being read
+            return stale;
+        }).thenReturn(fresh);
+
+        assertSame(stale, catalog.findByName("items"));
+        assertSame(fresh, catalog.findByName("items"));
+    }
+
+    @Test
+    void findByName_otherTableChangedDuringLoad_stillPublishes() {
+        catalog.publishAll(List.of(), catalog.loadMark());
+        TableMetadata items = table(UUID.randomUUID(), "items");
+        when(tableRepository.findByLogicalName("items")).thenAnswer(inv -> {
+            catalog.invalidate(UUID.randomUUID());
+            return items;
+        });
+
+        assertSame(items, catalog.findByName("items"));
+        assertSame(items, catalog.findByName("items"));
+        verify(tableRepository, times(1)).findByLogicalName("items");
+    }
+
+    @Test
+    void findByName_concurrentMisses_shareOneLoad() throws Exception {
+        catalog.publishAll(List.of(), catalog.loadMark());
+        TableMetadata items = table(UUID.randomUUID(), "items");
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(tableRepository.findByLogicalName("items")).thenAnswer(inv -> {
+            loading.countDown();
+            release.await();
+            return items;
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            Future<TableMetadata> first = pool.submit(() -> catalog.findByName("items"));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            List<Future<TableMetadata>> others = List.of(
+                    pool.submit(() -> catalog.findByName("items")),
+                    pool.submit(() -> catalog.findByName("items")));
+            CompletableFuture<TableMetadata> running = catalog.runningLoad("items");
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (running.getNumberOfDependents() < others.size()) { // both are waiting on the load
+                assertTrue(System.currentTimeMillis() < deadline, "lookups did not join the running load");
+                Thread.yield();
+            }
+            release.countDown();
+
+            assertSame(items, first.get(5, TimeUnit.SECONDS));
+            for (Future<TableMetadata> f : others) assertSame(items, f.get(5, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+        verify(tableRepository, times(1)).findByLogicalName("items");
+    }
+
+    @Test
+    void staleWhileRevalidate_servesPreviousStateDuringRefresh() throws Exception {
+        TableCatalog swr = new TableCatalog(tableRepository, true);
+        UUID id = UUID.randomUUID();
+        TableMetadata before = table(id, "items");
+        TableMetadata after = table(id, "items");
+        swr.publishAll(List.of(before), swr.loadMark());
+        CountDownLatch release = new CountDownLatch(1);
+        when(tableRepository.findByLogicalName("items")).thenAnswer(inv -> {
+            release.await();
+            return after;
+        });
+
+        swr.invalidate(id);
+        assertSame(before, swr.findByName("items"));
+        release.countDown();
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (swr.findByName("items") != after) {
+            assertTrue(System.currentTimeMillis() < deadline, "refresh not published");
+            Thread.sleep(10);
+        }
+        swr.destroy();
+    }
+}
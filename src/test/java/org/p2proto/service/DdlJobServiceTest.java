@@ -0,0 +1,66 @@
+package org.p2proto.service;
+
+import org.junit.jupiter.api.Test;
+import org.p2proto.dto.CurrentUser;
+import org.p2proto.dto.DdlJob;
+import org.p2proto.dto.TableMetadata;
+import org.p2proto.model.component.ComponentHistory;
+import org.p2proto.model.component.ComponentHistory.ComponentHistoryStatus;
+import org.p2proto.repository.component.ComponentHistoryRepository;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DdlJobServiceTest {
+
+    private final TableService tableService = mock(TableService.class);
+    private final ComponentService componentService = mock(ComponentService.class);
+    private final ComponentHistoryRepository historyRepository = mock(ComponentHistoryRepository.class);
+    private final DdlJobService jobs = new DdlJobService(tableService, componentService, historyRepository);
+
+    private final TableMetadata meta = TableMetadata.builder().tableName("items").columns(TableService.defaultColumns()).build();
+    private final CurrentUser user = new CurrentUser(1, UUID.randomUUID(), "u", "U", "u@example.com");
+    private final TableService.Provisioning provisioning = new TableService.Provisioning(UUID.randomUUID(), 42L);
+
+    @Test
+    void submitCreateTable_returnsInProgressJobAndFinishesInBackground() throws InterruptedException {
+        when(tableService.startCreateTable(user)).thenReturn(provisioning);
+
+        DdlJob job = jobs.submitCreateTable(meta, user);
+        jobs.destroy(); // waits for the queued job
+
+        assertEquals(42L, job.jobId());
+        assertEquals(provisioning.tableId(), job.tableId());
+        assertEquals(ComponentHistoryStatus.IN_PROGRESS, job.status());
+        verify(tableService).finishCreateTable(meta, provisioning, user);
+        verify(componentService, never()).markFailure(any(), any());
+    }
+
+    @Test
+    void submitCreateTable_failedDdl_marksJobFailed() throws InterruptedException {
+        when(tableService.startCreateTable(user)).thenReturn(provisioning);
+        doThrow(new IllegalStateException("lock timeout"))
+                .when(tableService).finishCreateTable(meta, provisioning, user);
+
+        jobs.submitCreateTable(meta, user);
+        jobs.destroy();
+
+        verify(componentService).markFailure(provisioning.tableId(), 42L);
+    }
+
+    @Test
+    void failLeftoverJobs_marksUnfinishedJobsFailedOnce() {
+        ComponentHistory leftover = new ComponentHistory();
+        leftover.setId(7L);
+        leftover.setComponentId(UUID.randomUUID());
+        when(historyRepository.findInProgressTableJobs(any())).thenReturn(List.of(leftover));
+
+        jobs.failLeftoverJobs();
+        jobs.failLeftoverJobs(); // child context refresh
+
+        verify(componentService, times(1)).markFailure(leftover.getComponentId(), 7L);
+    }
+}
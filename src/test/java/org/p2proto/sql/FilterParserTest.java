@@ -0,0 +1,83 @@
+package org.p2proto.sql;
+
+import org.junit.jupiter.api.Test;
+import org.p2proto.domain.DomainFactory;
+import org.p2proto.domain.FormulaDomain;
+import org.p2proto.dto.ColumnMetaData;
+import org.p2proto.dto.TableMetadata;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FilterParserTest {
+
+    private static ColumnMetaData column(String name, String domain) {
+        return new ColumnMetaData(name, name, DomainFactory.fromInternalName(domain), null, Collections.emptyMap());
+    }
+
+    /**
+     * Table with columns: id (PK), email, birthday, password_hash, full_name (formula).
+     */
+    private TableMetadata buildTableMetadata() {
+        ColumnMetaData id = column("id", "AUTOINCREMENT");
+        return TableMetadata.builder()
+                .tableName("people")
+                .column(id)
+                .column(column("email", "TEXT"))
+                .column(column("birthday", "DATE"))
+                .column(column("password_hash", "PASSWORD"))
+                .column(new ColumnMetaData("full_name", "Full Name", FormulaDomain.INSTANCE, null,
+                        Map.of(FormulaDomain.FORMULA_KEY, "email")))
+                .primaryKeyMeta(id)
+                .build();
+    }
+
+    @Test
+    void parse_andOfOrs_rendersThroughWhereRenderer() {
+        TableMetadata meta = buildTableMetadata();
+        Criterion c = FilterParser.parse(meta, new String[]{"email:ilike:%acme%|email:eq:x@y.z", "id:in:1,2,3"});
+
+        WhereSql ws = new WhereRenderer(meta).render(c);
+
+        assertEquals("WHERE ((email ILIKE :p1 OR email = :p2) AND id IN (:p3, :p4, :p5))", ws.sql());
+        assertEquals("%acme%", ws.params().getValue("p1"));
+        assertEquals(1L, ws.params().getValue("p3"));
+    }
+
+    @Test
+    void parse_convertsValuesPerDomain() {
+        TableMetadata meta = buildTableMetadata();
+        Condition c = (Condition) FilterParser.parse(meta, new String[]{"birthday:between:2000-01-01,2000-12-31"});
+
+        assertEquals(Op.BETWEEN, c.op);
+        assertEquals(List.of(LocalDate.of(2000, 1, 1), LocalDate.of(2000, 12, 31)), c.value);
+    }
+
+    @Test
+    void parse_valueMayContainColons() {
+        TableMetadata meta = buildTableMetadata();
+        Condition c = (Condition) FilterParser.parse(meta, new String[]{"email:eq:a:b"});
+        assertEquals("a:b", c.value);
+    }
+
+    @Test
+    void parse_nothing_returnsNull() {
+        assertNull(FilterParser.parse(buildTableMetadata(), null));
+        assertNull(FilterParser.parse(buildTableMetadata(), new String[]{" "}));
+    }
+
+    @Test
+    void parse_rejectsUnknownAndUnfilterableColumns() {
+        TableMetadata meta = buildTableMetadata();
+        assertThrows(IllegalArgumentException.class, () -> FilterParser.parse(meta, new String[]{"nope:eq:1"}));
+        assertThrows(IllegalArgumentException.class, () -> FilterParser.parse(meta, new String[]{"password_hash:eq:x"}));
+        assertThrows(IllegalArgumentException.class, () -> FilterParser.parse(meta, new String[]{"full_name:eq:x"}));
+        assertThrows(IllegalArgumentException.class, () -> FilterParser.parse(meta, new String[]{"id:like:1%"}));
+        assertThrows(IllegalArgumentException.class, () -> FilterParser.parse(meta, new String[]{"id:eq:abc"}));
+        assertThrows(IllegalArgumentException.class, () -> FilterParser.parse(meta, new String[]{"id:bogus:1"}));
+    }
+}
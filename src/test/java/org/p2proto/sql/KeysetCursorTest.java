@@ -0,0 +1,58 @@
+package org.p2proto.sql;
+
+import org.junit.jupiter.api.Test;
+import org.p2proto.domain.DomainFactory;
+import org.p2proto.dto.ColumnMetaData;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetCursorTest {
+
+    private static ColumnMetaData column(String name, String domain) {
+        return new ColumnMetaData(name, name, DomainFactory.fromInternalName(domain), null, Collections.emptyMap());
+    }
+
+    @Test
+    void roundTrip_keepsDomainTypes() {
+        List<ColumnMetaData> keys = List.of(column("created_at", "DATETIME"), column("uid", "UUID"));
+        LocalDateTime ts = LocalDateTime.of(2025, 3, 1, 12, 30, 15, 123456000);
+        UUID id = UUID.randomUUID();
+
+        String cursor = KeysetCursor.encode(List.of(Timestamp.valueOf(ts), id));
+        List<Object> decoded = KeysetCursor.decode(cursor, keys);
+
+        assertEquals(ts, decoded.get(0));
+        assertEquals(id, decoded.get(1));
+    }
+
+    @Test
+    void roundTrip_nullSortValue() {
+        List<ColumnMetaData> keys = List.of(column("summary", "TEXT"), column("id", "AUTOINCREMENT"));
+
+        String cursor = KeysetCursor.encode(Arrays.asList(null, 42));
+        List<Object> decoded = KeysetCursor.decode(cursor, keys);
+
+        assertNull(decoded.get(0));
+        assertEquals(42, decoded.get(1));
+    }
+
+    @Test
+    void decode_garbage_throwsIllegalArgument() {
+        List<ColumnMetaData> keys = List.of(column("id", "AUTOINCREMENT"));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("not a cursor!", keys));
+    }
+
+    @Test
+    void decode_wrongArity_throwsIllegalArgument() {
+        List<ColumnMetaData> keys = List.of(column("summary", "TEXT"), column("id", "AUTOINCREMENT"));
+        String cursor = KeysetCursor.encode(List.of(1));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(cursor, keys));
+    }
+}
@@ -0,0 +1,50 @@
+package org.p2proto.sql;
+
+import org.junit.jupiter.api.Test;
+import org.p2proto.domain.DomainFactory;
+import org.p2proto.dto.ColumnMetaData;
+import org.p2proto.dto.TableMetadata;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlLiteralsTest {
+
+    private static ColumnMetaData column(String name, String domain) {
+        return new ColumnMetaData(name, name, DomainFactory.fromInternalName(domain), null, Collections.emptyMap());
+    }
+
+    @Test
+    void inline_replacesParametersWithLiterals() {
+        ColumnMetaData id = column("id", "UUID");
+        TableMetadata meta = TableMetadata.builder()
+                .tableName("items")
+                .column(id)
+                .column(column("name", "TEXT"))
+                .column(column("qty", "INTEGER"))
+                .primaryKeyMeta(id)
+                .build();
+        UUID uid = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+        String sql = SqlLiterals.inline(new WhereRenderer(meta).render(Group.and(
+                Condition.eq("id", uid.toString()),
+                Condition.in("name", List.of("o'neil", "x")),
+                Condition.gt("qty", 5L))));
+
+        assertEquals("WHERE (id = '00000000-0000-0000-0000-000000000001'::uuid"
+                + " AND name IN ('o''neil', 'x') AND qty > 5)", sql);
+        assertEquals("", SqlLiterals.inline(new WhereRenderer(meta).render(null)));
+    }
+
+    @Test
+    void literal_quotesNonNumbers() {
+        assertEquals("NULL", SqlLiterals.literal(null));
+        assertEquals("TRUE", SqlLiterals.literal(true));
+        assertEquals("1.5", SqlLiterals.literal(1.5));
+        assertEquals("'NaN'", SqlLiterals.literal(Double.NaN));
+        assertEquals("'2025-01-02'", SqlLiterals.literal(java.time.LocalDate.of(2025, 1, 2)));
+    }
+}